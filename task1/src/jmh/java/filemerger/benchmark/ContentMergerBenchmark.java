@@ -0,0 +1,69 @@
+package filemerger.benchmark;
+
+import filemerger.buffer.DirectBufferPool;
+import filemerger.content.ChannelContentMerger;
+import filemerger.content.ContentMerger;
+import filemerger.content.InMemoryContentMerger;
+import filemerger.content.IncrementalContentMerger;
+import filemerger.content.ParallelContentMerger;
+import filemerger.content.PrefetchingContentMerger;
+import filemerger.content.StreamingContentMerger;
+import filemerger.order.TopologicalOrderResolver;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Слияние содержимого дерева в уже известном порядке.
+ * Вариант streamingUnpooled использует пул с нулевым бюджетом, то есть новый
+ * буфер на каждое слияние.
+ * Вариант incremental повторяет слияние в тот же файл без изменений в дереве,
+ * то есть измеряет проверку манифеста, а не первую запись результата.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ContentMergerBenchmark {
+    @Param({"inMemory", "streaming", "streamingUnpooled", "channel", "parallel", "prefetching", "incremental"})
+    public String merger;
+
+    @Param({"WIDE", "DEEP_CHAIN", "DENSE_DAG", "MANY_TINY_FILES", "FEW_HUGE_FILES"})
+    public TreeShape shape;
+
+    private Path root;
+    private Path output;
+    private List<String> order;
+    private ContentMerger contentMerger;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        root = TreeGenerator.generate(shape);
+        output = Files.createTempFile("filemerger-bench", ".out");
+        order = new TopologicalOrderResolver().resolve(TreeGenerator.dependencies(shape));
+        contentMerger = switch (merger) {
+            case "inMemory" -> new InMemoryContentMerger();
+            case "streaming" -> new StreamingContentMerger();
+            case "streamingUnpooled" -> new StreamingContentMerger(
+                new DirectBufferPool(DirectBufferPool.DEFAULT_BUFFER_SIZE, 0));
+            case "channel" -> new ChannelContentMerger();
+            case "parallel" -> new ParallelContentMerger();
+            case "prefetching" -> new PrefetchingContentMerger();
+            case "incremental" -> new IncrementalContentMerger();
+            default -> throw new IllegalArgumentException("Unknown merger: " + merger);
+        };
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        TreeGenerator.delete(root);
+        Files.deleteIfExists(output);
+    }
+
+    @Benchmark
+    public void merge() {
+        contentMerger.merge(order, root.toString(), output.toString());
+    }
+}
@@ -0,0 +1,96 @@
+package filemerger.benchmark;
+
+import filemerger.buffer.DirectBufferPool;
+import filemerger.dependency.CachingDependencyExtractor;
+import filemerger.dependency.DependencyExtractor;
+import filemerger.dependency.InMemoryDependencyExtractor;
+import filemerger.dependency.ParallelDependencyScanner;
+import filemerger.dependency.StreamingDependencyExtractor;
+import filemerger.dependency.VectorizedDependencyExtractor;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Извлечение зависимостей из всех файлов дерева одним извлекателем.
+ * Вариант streamingUnpooled использует пул с нулевым бюджетом, то есть новые
+ * буферы на каждый файл; разницу в аллокациях показывает профилировщик gc.
+ * Вариант vectorized ищет директивы на Vector API (модуль подключается в build.gradle).
+ * Вариант caching читает заранее заполненный кэш, то есть измеряет попадания.
+ * Вариант parallel извлекает зависимости потоковым извлекателем через
+ * {@link ParallelDependencyScanner} на всех ядрах.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DependencyExtractorBenchmark {
+    @Param({"inMemory", "streaming", "streamingUnpooled", "vectorized", "caching", "parallel"})
+    public String extractor;
+
+    @Param({"WIDE", "DEEP_CHAIN", "DENSE_DAG", "MANY_TINY_FILES", "FEW_HUGE_FILES"})
+    public TreeShape shape;
+
+    private Path root;
+    private Path cacheDirectory;
+    private List<String> files;
+    private DependencyExtractor dependencyExtractor;
+    private ParallelDependencyScanner scanner;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        root = TreeGenerator.generate(shape);
+        files = new ArrayList<>(shape.fileCount);
+        for (int i = 0; i < shape.fileCount; i++) {
+            files.add(TreeGenerator.fileName(i));
+        }
+        dependencyExtractor = switch (extractor) {
+            case "inMemory" -> new InMemoryDependencyExtractor();
+            case "streaming" -> new StreamingDependencyExtractor();
+            case "streamingUnpooled" -> new StreamingDependencyExtractor(
+                new DirectBufferPool(DirectBufferPool.DEFAULT_BUFFER_SIZE, 0),
+                StreamingDependencyExtractor.DEFAULT_BUFFER_SIZE);
+            case "vectorized" -> new VectorizedDependencyExtractor();
+            case "caching" -> warmCache(new CachingDependencyExtractor(
+                new StreamingDependencyExtractor(),
+                cacheDirectory = Files.createTempDirectory("filemerger-bench-cache")));
+            case "parallel" -> new StreamingDependencyExtractor();
+            default -> throw new IllegalArgumentException("Unknown extractor: " + extractor);
+        };
+        if (extractor.equals("parallel")) {
+            scanner = new ParallelDependencyScanner(dependencyExtractor, Runtime.getRuntime().availableProcessors());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        TreeGenerator.delete(root);
+        TreeGenerator.delete(cacheDirectory);
+    }
+
+    @Benchmark
+    public void extractAll(Blackhole blackhole) {
+        if (scanner != null) {
+            blackhole.consume(scanner.scan(files, root.toString()));
+            return;
+        }
+        for (String file : files) {
+            blackhole.consume(dependencyExtractor.extractDependencies(
+                root.resolve(file).toString(),
+                root.toString()
+            ));
+        }
+    }
+
+    private DependencyExtractor warmCache(CachingDependencyExtractor cache) throws Exception {
+        for (String file : files) {
+            cache.extractDependencies(root.resolve(file).toString(), root.toString());
+        }
+        cache.flush();
+        return cache;
+    }
+}
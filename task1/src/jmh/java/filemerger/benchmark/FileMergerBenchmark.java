@@ -0,0 +1,55 @@
+package filemerger.benchmark;
+
+import filemerger.FileMerger;
+import filemerger.FileMergerFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Полный цикл FileMerger.merge: обход, извлечение зависимостей, сортировка и запись.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FileMergerBenchmark {
+    private static final long ADAPTIVE_HEAP_BUDGET = 512L * 1024 * 1024;
+
+    @Param({"inMemory", "streaming", "zeroCopy", "parallel", "fused", "adaptive"})
+    public String merger;
+
+    @Param({"WIDE", "DEEP_CHAIN", "DENSE_DAG", "MANY_TINY_FILES", "FEW_HUGE_FILES"})
+    public TreeShape shape;
+
+    private Path root;
+    private Path output;
+    private FileMerger fileMerger;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        root = TreeGenerator.generate(shape);
+        output = Files.createTempFile("filemerger-bench", ".out");
+        fileMerger = switch (merger) {
+            case "inMemory" -> FileMergerFactory.createInMemoryMerger();
+            case "streaming" -> FileMergerFactory.createStreamingMerger();
+            case "zeroCopy" -> FileMergerFactory.createZeroCopyMerger();
+            case "parallel" -> FileMergerFactory.createParallelMerger(Runtime.getRuntime().availableProcessors());
+            case "fused" -> FileMergerFactory.createFusedMerger(ADAPTIVE_HEAP_BUDGET);
+            case "adaptive" -> FileMergerFactory.createAdaptiveMerger(ADAPTIVE_HEAP_BUDGET);
+            default -> throw new IllegalArgumentException("Unknown merger: " + merger);
+        };
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        TreeGenerator.delete(root);
+        Files.deleteIfExists(output);
+    }
+
+    @Benchmark
+    public void merge() {
+        fileMerger.merge(root.toString(), output.toString());
+    }
+}
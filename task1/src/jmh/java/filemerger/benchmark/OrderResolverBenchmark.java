@@ -0,0 +1,40 @@
+package filemerger.benchmark;
+
+import filemerger.order.DependencyGraph;
+import filemerger.order.OrderResolver;
+import filemerger.order.TopologicalOrderResolver;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сортировка графа зависимостей без файловой системы.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class OrderResolverBenchmark {
+    @Param({"WIDE", "DEEP_CHAIN", "DENSE_DAG", "MANY_TINY_FILES"})
+    public TreeShape shape;
+
+    private final OrderResolver resolver = new TopologicalOrderResolver();
+    private String[][] pairs;
+    private DependencyGraph graph;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        pairs = TreeGenerator.dependencies(shape);
+        graph = DependencyGraph.of(pairs);
+    }
+
+    @Benchmark
+    public List<String> resolvePairs() {
+        return resolver.resolve(pairs);
+    }
+
+    @Benchmark
+    public List<String> resolveGraph() {
+        return resolver.resolve(graph);
+    }
+}
@@ -0,0 +1,118 @@
+package filemerger.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Генератор синтетических деревьев файлов для бенчмарков.
+ * Деревья детерминированы: одинаковая форма всегда дает одинаковые файлы.
+ */
+public final class TreeGenerator {
+    private static final int FILES_PER_DIRECTORY = 100;
+    private static final String FILLER =
+        "Lorem ipsum dolor sit amet, consectetur adipiscing elit. Suspendisse id enim euismod erat.\n";
+
+    private TreeGenerator() {
+    }
+
+    /**
+     * @return относительный путь i-го файла дерева
+     */
+    public static String fileName(int index) {
+        return String.format("dir%04d/file%06d.txt", index / FILES_PER_DIRECTORY, index);
+    }
+
+    /**
+     * Строит пары зависимостей [файл, зависимость] для формы дерева без создания файлов
+     */
+    public static String[][] dependencies(TreeShape shape) {
+        List<String[]> pairs = new ArrayList<>();
+        for (int i = 0; i < shape.fileCount; i++) {
+            for (int dependency : dependencyIndexes(shape, i)) {
+                pairs.add(new String[]{fileName(i), fileName(dependency)});
+            }
+        }
+        return pairs.toArray(new String[0][]);
+    }
+
+    /**
+     * Создает дерево файлов указанной формы во временной директории
+     * @return корневая директория
+     */
+    public static Path generate(TreeShape shape) throws IOException {
+        Path root = Files.createTempDirectory("filemerger-bench-" + shape.name().toLowerCase());
+        for (int i = 0; i < shape.fileCount; i++) {
+            Path file = root.resolve(fileName(i));
+            Files.createDirectories(file.getParent());
+
+            try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+                long written = 0;
+                for (int dependency : dependencyIndexes(shape, i)) {
+                    String directive = "require '" + fileName(dependency) + "'\n";
+                    writer.write(directive);
+                    written += directive.length();
+                }
+                while (written < shape.fileSize) {
+                    int length = (int) Math.min(FILLER.length(), shape.fileSize - written);
+                    writer.write(FILLER, 0, length);
+                    written += length;
+                }
+            }
+        }
+        return root;
+    }
+
+    /**
+     * Рекурсивно удаляет сгенерированное дерево
+     */
+    public static void delete(Path root) throws IOException {
+        if (root == null || !Files.exists(root)) {
+            return;
+        }
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private static int[] dependencyIndexes(TreeShape shape, int index) {
+        if (index == 0) {
+            return new int[0];
+        }
+        switch (shape) {
+            case WIDE:
+            case MANY_TINY_FILES:
+            case FEW_HUGE_FILES:
+                return new int[]{0};
+            case DEEP_CHAIN:
+                return new int[]{index - 1};
+            case DENSE_DAG:
+                Random random = new Random(index);
+                int count = Math.min(index, shape.dependenciesPerFile);
+                int[] dependencies = new int[count];
+                for (int i = 0; i < count; i++) {
+                    dependencies[i] = random.nextInt(index);
+                }
+                return dependencies;
+            default:
+                throw new IllegalArgumentException("Unknown shape: " + shape);
+        }
+    }
+}
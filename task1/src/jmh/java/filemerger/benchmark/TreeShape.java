@@ -0,0 +1,27 @@
+package filemerger.benchmark;
+
+/**
+ * Формы синтетических деревьев файлов для бенчмарков.
+ */
+public enum TreeShape {
+    /** Много независимых файлов, у каждого одна общая зависимость */
+    WIDE(10_000, 1, 512),
+    /** Одна длинная цепочка зависимостей */
+    DEEP_CHAIN(5_000, 1, 512),
+    /** Плотный ациклический граф: каждый файл зависит от нескольких предыдущих */
+    DENSE_DAG(2_000, 16, 512),
+    /** Очень много маленьких файлов: директива require занимает около 34 байт, остальное — текст */
+    MANY_TINY_FILES(50_000, 1, 64),
+    /** Несколько больших файлов */
+    FEW_HUGE_FILES(8, 1, 32 * 1024 * 1024);
+
+    final int fileCount;
+    final int dependenciesPerFile;
+    final int fileSize;
+
+    TreeShape(int fileCount, int dependenciesPerFile, int fileSize) {
+        this.fileCount = fileCount;
+        this.dependenciesPerFile = dependenciesPerFile;
+        this.fileSize = fileSize;
+    }
+}
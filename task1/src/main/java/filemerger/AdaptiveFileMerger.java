@@ -0,0 +1,134 @@
+package filemerger;
+
+import filemerger.content.ChannelContentMerger;
+import filemerger.dependency.DependencyExtractor;
+import filemerger.dependency.InMemoryDependencyExtractor;
+import filemerger.dependency.ParallelDependencyScanner;
+import filemerger.dependency.StreamingDependencyExtractor;
+import filemerger.order.TopologicalOrderResolver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Реализация FileMerger, выбирающая стратегию по статистике дерева файлов.
+ *
+ * - Статистика (число файлов, суммарный и максимальный размер) собирается
+ *   при обходе директории, который нужен в любом случае
+ * - Если все файлы помещаются в половину бюджета памяти, каждый файл читается
+ *   один раз ({@link FusedFileMerger})
+ * - Иначе зависимости извлекаются in-memory или потоково в зависимости от
+ *   размера наибольшего файла, параллельно при большом числе файлов,
+ *   а содержимое копируется без декодирования ({@link ChannelContentMerger})
+ * - Результат не зависит от выбранной стратегии и совпадает с потоковой реализацией
+ */
+public class AdaptiveFileMerger implements FileMerger {
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveFileMerger.class);
+
+    /** Во сколько раз in-memory извлечение превышает размер файла: байты и строка */
+    private static final int IN_MEMORY_OVERHEAD = 3;
+    private static final int PARALLEL_MIN_FILES = 1024;
+    private static final int FILES_PER_WORKER = 256;
+
+    private final long heapBudget;
+    private final int maxParallelism;
+    private volatile String lastStrategy;
+
+    /**
+     * @param heapBudget допустимый объем heap для слияния в байтах
+     */
+    public AdaptiveFileMerger(long heapBudget) {
+        this(heapBudget, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param heapBudget допустимый объем heap для слияния в байтах
+     * @param maxParallelism максимальное число воркеров извлечения зависимостей
+     */
+    public AdaptiveFileMerger(long heapBudget, int maxParallelism) {
+        if (heapBudget <= 0 || maxParallelism < 1) {
+            throw new IllegalArgumentException(
+                "Heap budget and parallelism must be positive: " + heapBudget + ", " + maxParallelism);
+        }
+        this.heapBudget = heapBudget;
+        this.maxParallelism = maxParallelism;
+    }
+
+    @Override
+    public MergeResult merge(String rootPath, String outputPath, MergeListener listener) {
+        return merge(rootPath, MergeTarget.of(outputPath), listener);
+    }
+
+    @Override
+    public MergeResult merge(String rootPath, WritableByteChannel output, MergeListener listener) {
+        return merge(rootPath, MergeTarget.of(output), listener);
+    }
+
+    private MergeResult merge(String rootPath, MergeTarget target, MergeListener listener) {
+        MergeTracker tracker = new MergeTracker(listener);
+        tracker.startStage(MergeStage.WALK);
+        TreeStatistics statistics = TreeStatistics.collect(rootPath);
+        tracker.completeStage();
+
+        int fileCount = statistics.getFileCount();
+        long totalBytes = statistics.getTotalBytes();
+        long largestFileBytes = statistics.getLargestFileBytes();
+
+        if (totalBytes <= heapBudget / 2) {
+            long cacheBudget = heapBudget / 2;
+            choose("fused", statistics, "все файлы помещаются в половину бюджета, каждый файл читается один раз");
+            return new FusedFileMerger(
+                new TopologicalOrderResolver(),
+                cacheBudget,
+                Math.min(cacheBudget, Integer.MAX_VALUE - 8)
+            ).merge(statistics.getFiles(), rootPath, target, tracker);
+        }
+
+        int parallelism = fileCount >= PARALLEL_MIN_FILES
+            ? Math.max(1, Math.min(maxParallelism, fileCount / FILES_PER_WORKER))
+            : 1;
+
+        DependencyExtractor extractor;
+        String extractorReason;
+        if (largestFileBytes * IN_MEMORY_OVERHEAD * parallelism <= heapBudget) {
+            extractor = new InMemoryDependencyExtractor();
+            extractorReason = "наибольший файл помещается в бюджет каждого воркера";
+        } else {
+            extractor = new StreamingDependencyExtractor();
+            extractorReason = "наибольший файл не помещается в бюджет воркера, файлы читаются порциями";
+        }
+
+        String strategy = (parallelism > 1 ? "parallel(" + parallelism + ")-" : "")
+            + (extractor instanceof InMemoryDependencyExtractor ? "in-memory" : "streaming")
+            + "-zero-copy";
+        choose(strategy, statistics, "файлы не помещаются в половину бюджета; " + extractorReason
+            + (parallelism > 1 ? "; файлов достаточно для " + parallelism + " воркеров" : ""));
+
+        SimpleFileMerger merger = parallelism > 1
+            ? new SimpleFileMerger(
+                new ParallelDependencyScanner(extractor, parallelism),
+                new ChannelContentMerger(),
+                new TopologicalOrderResolver())
+            : new SimpleFileMerger(extractor, new ChannelContentMerger(), new TopologicalOrderResolver());
+        return merger.merge(statistics, rootPath, target, tracker);
+    }
+
+    /**
+     * @return название стратегии, выбранной последним слиянием
+     */
+    public String getLastStrategy() {
+        return lastStrategy;
+    }
+
+    private void choose(String strategy, TreeStatistics statistics, String reason) {
+        lastStrategy = strategy;
+        logger.info("Выбрана стратегия {}: файлов {}, всего {} байт, наибольший файл {} байт, бюджет {} байт. Причина: {}",
+            strategy,
+            statistics.getFileCount(),
+            statistics.getTotalBytes(),
+            statistics.getLargestFileBytes(),
+            heapBudget,
+            reason);
+    }
+}
@@ -0,0 +1,292 @@
+package filemerger;
+
+import filemerger.content.ContentMerger;
+import filemerger.dependency.DependencyExtractor;
+import filemerger.dependency.ParallelDependencyScanner;
+import filemerger.order.OrderResolver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Слияние нескольких корневых директорий за один вызов.
+ *
+ * - Все задания выполняются в одном ForkJoinPool: независимые задания
+ *   идут параллельно, зависимости внутри задания извлекаются тем же пулом
+ * - Зависимости запоминаются по идентичности файла (устройство и inode, если
+ *   файловая система их сообщает, иначе реальный путь) вместе с размером и
+ *   временем модификации, поэтому файл, доступный из нескольких корней через
+ *   символические ссылки или пересекающиеся поддеревья, читается один раз
+ * - Число одновременных операций ввода-вывода (чтение файла для извлечения
+ *   зависимостей или запись результата задания) ограничено общим бюджетом
+ * - Результат каждого задания совпадает с отдельным вызовом {@link SimpleFileMerger}
+ */
+public class BatchFileMerger {
+    private static final Logger logger = LoggerFactory.getLogger(BatchFileMerger.class);
+
+    private final DependencyExtractor dependencyExtractor;
+    private final ContentMerger contentMerger;
+    private final OrderResolver orderResolver;
+    private final int parallelism;
+    private final int ioBudget;
+
+    private volatile long lastExtractions;
+    private volatile long lastDeduplicatedReads;
+
+    /**
+     * @param dependencyExtractor извлекатель, вызываемый для каждого уникального файла
+     * @param contentMerger объединитель содержимого
+     * @param orderResolver сортировщик зависимостей
+     * @param parallelism число потоков общего пула
+     * @param ioBudget максимальное число одновременных операций ввода-вывода
+     */
+    public BatchFileMerger(
+        DependencyExtractor dependencyExtractor,
+        ContentMerger contentMerger,
+        OrderResolver orderResolver,
+        int parallelism,
+        int ioBudget
+    ) {
+        if (parallelism < 1 || ioBudget < 1) {
+            throw new IllegalArgumentException(
+                "Parallelism and I/O budget must be positive: " + parallelism + ", " + ioBudget);
+        }
+        this.dependencyExtractor = dependencyExtractor;
+        this.contentMerger = contentMerger;
+        this.orderResolver = orderResolver;
+        this.parallelism = parallelism;
+        this.ioBudget = ioBudget;
+    }
+
+    /**
+     * Выполняет все задания. Ошибка одного задания не прерывает остальные.
+     * @param jobs пары (корневая директория, выходной файл)
+     * @return итоги слияния, i-й элемент соответствует i-му заданию
+     * @throws RuntimeException если хотя бы одно задание завершилось ошибкой;
+     *         ошибки остальных заданий добавлены как suppressed
+     */
+    public List<MergeResult> mergeAll(List<Job> jobs) {
+        Semaphore io = new Semaphore(ioBudget);
+        MemoizingExtractor extractor = new MemoizingExtractor(dependencyExtractor, io);
+        ContentMerger throttledMerger = new ThrottledContentMerger(contentMerger, io);
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<Future<MergeResult>> futures = new ArrayList<>(jobs.size());
+            for (Job job : jobs) {
+                SimpleFileMerger merger = new SimpleFileMerger(
+                    new ParallelDependencyScanner(extractor, pool),
+                    throttledMerger,
+                    orderResolver);
+                futures.add(pool.submit(() -> merger.merge(job.getRootPath(), job.getOutputPath())));
+            }
+
+            List<MergeResult> results = new ArrayList<>(jobs.size());
+            RuntimeException failure = null;
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    results.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    RuntimeException error = new RuntimeException(
+                        "Failed to merge root: " + jobs.get(i).getRootPath(), e.getCause());
+                    if (failure == null) {
+                        failure = error;
+                    } else {
+                        failure.addSuppressed(error);
+                    }
+                    results.add(null);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted while merging roots", e);
+                }
+            }
+
+            lastExtractions = extractor.extractions.sum();
+            lastDeduplicatedReads = extractor.deduplicated.sum();
+            logger.info("Выполнено заданий: {}, файлов прочитано для извлечения зависимостей: {}, повторных чтений избежано: {}",
+                jobs.size(), lastExtractions, lastDeduplicatedReads);
+
+            if (failure != null) {
+                throw failure;
+            }
+            return results;
+        } finally {
+            pool.shutdown();
+            awaitTermination(pool);
+        }
+    }
+
+    /**
+     * @return число файлов, из которых зависимости извлекались при последнем запуске
+     */
+    public long getLastExtractions() {
+        return lastExtractions;
+    }
+
+    /**
+     * @return число запросов зависимостей при последнем запуске, обслуженных без чтения файла
+     */
+    public long getLastDeduplicatedReads() {
+        return lastDeduplicatedReads;
+    }
+
+    private static void acquire(Semaphore semaphore) {
+        try {
+            semaphore.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for I/O budget", e);
+        }
+    }
+
+    private static void awaitTermination(ForkJoinPool pool) {
+        try {
+            pool.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Задание пакетного слияния
+     */
+    public static final class Job {
+        private final String rootPath;
+        private final String outputPath;
+
+        /**
+         * @param rootPath путь к корневой директории с файлами
+         * @param outputPath путь к выходному файлу
+         */
+        public Job(String rootPath, String outputPath) {
+            this.rootPath = rootPath;
+            this.outputPath = outputPath;
+        }
+
+        public String getRootPath() {
+            return rootPath;
+        }
+
+        public String getOutputPath() {
+            return outputPath;
+        }
+    }
+
+    /**
+     * Извлекатель, запоминающий зависимости по идентичности файла на время одного запуска.
+     * Одновременные запросы одного файла ждут единственного чтения.
+     */
+    /**
+     * Объединитель содержимого, занимающий разрешение на ввод-вывод на время записи
+     */
+    private static final class ThrottledContentMerger implements ContentMerger {
+        private final ContentMerger delegate;
+        private final Semaphore io;
+
+        ThrottledContentMerger(ContentMerger delegate, Semaphore io) {
+            this.delegate = delegate;
+            this.io = io;
+        }
+
+        @Override
+        public void merge(List<String> sortedPaths, String rootPath, String outputPath) {
+            acquire(io);
+            try {
+                delegate.merge(sortedPaths, rootPath, outputPath);
+            } finally {
+                io.release();
+            }
+        }
+
+        @Override
+        public long mergeCountingWrites(List<String> sortedPaths, String rootPath, String outputPath) {
+            acquire(io);
+            try {
+                return delegate.mergeCountingWrites(sortedPaths, rootPath, outputPath);
+            } finally {
+                io.release();
+            }
+        }
+
+        @Override
+        public void merge(List<String> sortedPaths, String rootPath, WritableByteChannel output) {
+            acquire(io);
+            try {
+                delegate.merge(sortedPaths, rootPath, output);
+            } finally {
+                io.release();
+            }
+        }
+    }
+
+    private static final class MemoizingExtractor implements DependencyExtractor {
+        private final DependencyExtractor delegate;
+        private final Semaphore io;
+        private final Map<String, CompletableFuture<List<String>>> memo = new ConcurrentHashMap<>();
+        private final LongAdder extractions = new LongAdder();
+        private final LongAdder deduplicated = new LongAdder();
+
+        MemoizingExtractor(DependencyExtractor delegate, Semaphore io) {
+            this.delegate = delegate;
+            this.io = io;
+        }
+
+        @Override
+        public List<String> extractDependencies(String filePath, String rootPath) {
+            Path path = Path.of(rootPath).resolve(filePath);
+            String key = identity(path, filePath);
+
+            CompletableFuture<List<String>> created = new CompletableFuture<>();
+            CompletableFuture<List<String>> existing = memo.putIfAbsent(key, created);
+            if (existing != null) {
+                deduplicated.increment();
+                try {
+                    return existing.join();
+                } catch (CompletionException e) {
+                    throw e.getCause() instanceof RuntimeException cause ? cause : e;
+                }
+            }
+
+            extractions.increment();
+            acquire(io);
+            try {
+                List<String> dependencies = List.copyOf(delegate.extractDependencies(filePath, rootPath));
+                created.complete(dependencies);
+                return dependencies;
+            } catch (RuntimeException e) {
+                created.completeExceptionally(e);
+                throw e;
+            } finally {
+                io.release();
+            }
+        }
+
+        private static String identity(Path path, String filePath) {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                Object fileKey = attributes.fileKey();
+                String file = fileKey != null ? fileKey.toString() : path.toRealPath().toString();
+                return file + ':' + attributes.size() + ':' + attributes.lastModifiedTime().toMillis();
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to read file: " + filePath, e);
+            }
+        }
+    }
+}
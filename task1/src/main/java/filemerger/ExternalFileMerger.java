@@ -0,0 +1,177 @@
+package filemerger;
+
+import filemerger.content.ContentMerger;
+import filemerger.dependency.DependencyExtractor;
+import filemerger.order.ExternalOrderResolver;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Реализация FileMerger с ограниченным объемом heap для деревьев из десятков миллионов файлов.
+ *
+ * - Список файлов не хранится в памяти: обход пишет пути во временный файл,
+ *   из которого они читаются при извлечении зависимостей
+ * - Ребра и топологический порядок обрабатываются внешней сортировкой
+ *   ({@link ExternalOrderResolver}), в памяти находится не больше бюджета ребер
+ * - Результат записывается частями по batchSize файлов, разделитель между частями
+ *   пишется отдельно, поэтому результат побайтно совпадает с {@link SimpleFileMerger}
+ *   с тем же объединителем содержимого
+ * - Зависимости извлекаются в одном потоке: скорость меняется на масштаб
+ */
+public class ExternalFileMerger implements FileMerger {
+    private static final byte[] SEPARATOR = "\n\n".getBytes(StandardCharsets.UTF_8);
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+    private final DependencyExtractor dependencyExtractor;
+    private final ContentMerger contentMerger;
+    private final ExternalOrderResolver orderResolver;
+    private final Path workDirectory;
+    private final int batchSize;
+
+    /**
+     * @param dependencyExtractor извлекатель зависимостей
+     * @param contentMerger объединитель содержимого, отделяющий файлы разделителем "\n\n"
+     * @param memoryBudget оценочный объем памяти для ребер графа
+     * @param workDirectory директория для временных файлов
+     */
+    public ExternalFileMerger(
+        DependencyExtractor dependencyExtractor,
+        ContentMerger contentMerger,
+        long memoryBudget,
+        Path workDirectory
+    ) {
+        this.dependencyExtractor = dependencyExtractor;
+        this.contentMerger = contentMerger;
+        this.orderResolver = new ExternalOrderResolver(memoryBudget, workDirectory);
+        this.workDirectory = workDirectory;
+        this.batchSize = (int) Math.max(1, Math.min(64 * 1024, memoryBudget / 1024));
+    }
+
+    @Override
+    public MergeResult merge(String rootPath, String outputPath, MergeListener listener) {
+        return merge(rootPath, MergeTarget.of(outputPath), listener);
+    }
+
+    @Override
+    public MergeResult merge(String rootPath, WritableByteChannel output, MergeListener listener) {
+        return merge(rootPath, MergeTarget.of(output), listener);
+    }
+
+    private MergeResult merge(String rootPath, MergeTarget target, MergeListener listener) {
+        MergeTracker tracker = new MergeTracker(listener);
+        Path fileList = null;
+        try (ExternalOrderResolver.Session session = orderResolver.newSession()) {
+            tracker.startStage(MergeStage.WALK);
+            Files.createDirectories(workDirectory);
+            fileList = Files.createTempFile(workDirectory, "files", ".bin");
+            int fileCount = writeFileList(rootPath, fileList);
+            tracker.setFileCount(fileCount);
+            tracker.completeStage();
+
+            tracker.startStage(MergeStage.EXTRACT);
+            try (DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(Files.newInputStream(fileList), STREAM_BUFFER_SIZE))) {
+                for (int i = 0; i < fileCount; i++) {
+                    String file = new String(in.readNBytes(in.readInt()), StandardCharsets.UTF_8);
+                    long size = in.readLong();
+                    tracker.addEstimatedBytesRead(size);
+                    session.addFileSize(file, size);
+                    List<String> dependencies = dependencyExtractor.extractDependencies(
+                        Path.of(rootPath, file).toString(), rootPath);
+                    for (String dependency : dependencies) {
+                        session.addDependency(file, dependency);
+                    }
+                }
+            }
+            Files.delete(fileList);
+            flushDependencyExtractor();
+            tracker.completeStage();
+
+            tracker.startStage(MergeStage.RESOLVE);
+            session.resolve();
+            tracker.setGraphSize(session.nodeCount(), session.edgeCount());
+            tracker.completeStage();
+
+            tracker.startStage(MergeStage.WRITE);
+            try (WritableByteChannel output = target.open()) {
+                boolean[] first = {true};
+                session.forEachBatch(batchSize, batch -> {
+                    try {
+                        if (!first[0]) {
+                            writeFully(output, ByteBuffer.wrap(SEPARATOR));
+                        }
+                        first[0] = false;
+                        contentMerger.merge(batch, rootPath, output);
+                    } catch (IOException e) {
+                        throw new RuntimeException("Failed to merge files", e);
+                    }
+                });
+            }
+            // размеры взяты из списка файлов при обходе, а не запрашиваются повторно
+            tracker.addEstimatedBytesRead(session.nodeBytes());
+            tracker.completeStage();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to merge files", e);
+        } finally {
+            deleteQuietly(fileList);
+        }
+        return tracker.finish(target);
+    }
+
+    private static int writeFileList(String rootPath, Path fileList) throws IOException {
+        int[] count = {0};
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(fileList), STREAM_BUFFER_SIZE))) {
+            FileTreeWalker.DEFAULT.visit(rootPath, entry -> {
+                try {
+                    // длина в int, а не writeUTF: путь может быть длиннее 65535 байт
+                    byte[] path = entry.path.getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(path.length);
+                    out.write(path);
+                    out.writeLong(entry.size);
+                    count[0]++;
+                } catch (IOException e) {
+                    throw new RuntimeException("Failed to write file list: " + fileList, e);
+                }
+            });
+        }
+        return count[0];
+    }
+
+    private void flushDependencyExtractor() {
+        if (dependencyExtractor instanceof Flushable flushable) {
+            try {
+                flushable.flush();
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to flush dependency extractor", e);
+            }
+        }
+    }
+
+    private static void writeFully(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file != null) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ignored) {
+                // неудаленный временный файл не влияет на результат слияния
+            }
+        }
+    }
+}
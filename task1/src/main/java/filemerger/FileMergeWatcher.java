@@ -0,0 +1,388 @@
+package filemerger;
+
+import filemerger.content.ContentMerger;
+import filemerger.dependency.DependencyExtractor;
+import filemerger.order.DependencyGraph;
+import filemerger.order.OrderResolver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Режим наблюдения: пересобирает выходной файл при изменениях в корневой директории.
+ *
+ * - Граф зависимостей хранится в памяти между пересборками
+ * - Зависимости извлекаются заново только из измененных файлов
+ * - Порядок пересчитывается только при изменении ребер графа
+ * - Серии событий объединяются: пересборка начинается после паузы debounce
+ * - Удаление или перемещение поддиректории удаляет из графа все файлы под ней
+ *   и снимает наблюдение с ее поддиректорий; файлы и директории хранятся
+ *   в отсортированных картах и удаляются по префиксу, без просмотра всего графа
+ * - Изменения применяются к графу только после успешного извлечения зависимостей
+ *   и упорядочивания, при ошибке граф остается прежним
+ * - Выходной файл внутри корневой директории не участвует в слиянии,
+ *   как в {@link SimpleFileMerger}
+ */
+public class FileMergeWatcher implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(FileMergeWatcher.class);
+
+    private final DependencyExtractor dependencyExtractor;
+    private final ContentMerger contentMerger;
+    private final OrderResolver orderResolver;
+    private final Path root;
+    private final Path output;
+    private final Duration debounce;
+
+    private final TreeMap<String, List<String>> dependencies = new TreeMap<>();
+    private final Map<WatchKey, Path> watchedDirectories = new HashMap<>();
+    /** Наблюдаемые директории по пути относительно корня, корень — пустая строка */
+    private final TreeMap<String, WatchKey> watchedPaths = new TreeMap<>();
+    private final AtomicLong mergeCount = new AtomicLong();
+    private List<String> order = List.of();
+    private WatchService watchService;
+    private Thread thread;
+
+    public FileMergeWatcher(
+        DependencyExtractor dependencyExtractor,
+        ContentMerger contentMerger,
+        OrderResolver orderResolver,
+        String rootPath,
+        String outputPath,
+        Duration debounce
+    ) {
+        this.dependencyExtractor = dependencyExtractor;
+        this.contentMerger = contentMerger;
+        this.orderResolver = orderResolver;
+        this.root = Path.of(rootPath).toAbsolutePath().normalize();
+        this.output = Path.of(outputPath).toAbsolutePath().normalize();
+        this.debounce = debounce;
+    }
+
+    /**
+     * Выполняет полную сборку и запускает наблюдение в фоновом потоке
+     * @throws filemerger.exceptions.CyclicDependencyException если найдена циклическая зависимость
+     */
+    public synchronized void start() {
+        if (thread != null) {
+            throw new IllegalStateException("Watcher is already started");
+        }
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            registerTree(root);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to watch directory: " + root, e);
+        }
+
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            closeWatchService();
+            throw e;
+        }
+
+        thread = new Thread(this::watchLoop, "file-merge-watcher");
+        thread.setDaemon(true);
+        thread.start();
+        logger.info("Наблюдение за {} запущено, результат: {}", root, output);
+    }
+
+    /**
+     * @return число записей выходного файла, включая начальную сборку
+     */
+    public long getMergeCount() {
+        return mergeCount.get();
+    }
+
+    /**
+     * Ожидает, пока число записей выходного файла не достигнет заданного
+     * @param count ожидаемое число записей
+     * @param timeout максимальное время ожидания
+     * @return false, если время ожидания истекло
+     */
+    public boolean awaitMergeCount(long count, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        synchronized (mergeCount) {
+            while (mergeCount.get() < count) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(mergeCount, remaining);
+            }
+            return true;
+        }
+    }
+
+    @Override
+    public void close() {
+        Thread watcherThread;
+        synchronized (this) {
+            watcherThread = thread;
+            closeWatchService();
+        }
+        if (watcherThread != null) {
+            try {
+                watcherThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void closeWatchService() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                logger.warn("Не удалось закрыть WatchService", e);
+            }
+        }
+    }
+
+    private void watchLoop() {
+        try {
+            while (true) {
+                Set<String> changed = new TreeSet<>();
+                boolean overflow = collectEvents(watchService.take(), changed);
+
+                WatchKey key;
+                while ((key = watchService.poll(debounce.toMillis(), TimeUnit.MILLISECONDS)) != null) {
+                    overflow |= collectEvents(key, changed);
+                }
+
+                try {
+                    if (overflow) {
+                        logger.warn("Очередь событий переполнена, выполняется полная пересборка {}", root);
+                        rebuild();
+                    } else if (!changed.isEmpty()) {
+                        update(changed);
+                    }
+                } catch (RuntimeException e) {
+                    logger.error("Не удалось пересобрать {}", output, e);
+                }
+            }
+        } catch (ClosedWatchServiceException e) {
+            logger.info("Наблюдение за {} остановлено", root);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean collectEvents(WatchKey key, Set<String> changed) {
+        Path directory = watchedDirectories.get(key);
+        if (directory == null) {
+            // ключ удаленной директории, наблюдение за которой уже снято
+            key.pollEvents();
+            key.cancel();
+            return false;
+        }
+        boolean overflow = false;
+
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                overflow = true;
+                continue;
+            }
+            Path path = directory.resolve((Path) event.context());
+            if (path.equals(output)) {
+                continue;
+            }
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+                try {
+                    registerTree(path);
+                    changed.addAll(SimpleFileMerger.findTextFiles(path.toString()).stream()
+                        .map(file -> relativize(path.resolve(file)))
+                        .toList());
+                } catch (IOException | RuntimeException e) {
+                    logger.warn("Не удалось начать наблюдение за {}", path, e);
+                }
+            } else if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE && forgetDirectory(path, changed)) {
+                logger.debug("Директория {} удалена из наблюдения", path);
+            } else if (path.getFileName().toString().endsWith(".txt")) {
+                changed.add(relativize(path));
+            }
+        }
+
+        if (!key.reset()) {
+            // путь остается в watchedPaths до события удаления в родительской директории,
+            // чтобы оно убрало из графа файлы под ней
+            watchedDirectories.remove(key);
+        }
+        return overflow;
+    }
+
+    /**
+     * Снимает наблюдение с удаленной директории и отмечает измененными все известные файлы под ней
+     * @return true, если путь был наблюдаемой директорией
+     */
+    private boolean forgetDirectory(Path directory, Set<String> changed) {
+        String relative = relativize(directory);
+        WatchKey key = watchedPaths.remove(relative);
+        if (key == null) {
+            return false;
+        }
+        cancel(key);
+        Map<String, WatchKey> nested = underDirectory(watchedPaths, relative);
+        nested.values().forEach(this::cancel);
+        nested.clear();
+        changed.addAll(underDirectory(dependencies, relative).keySet());
+        return true;
+    }
+
+    private void cancel(WatchKey key) {
+        key.cancel();
+        watchedDirectories.remove(key);
+    }
+
+    /**
+     * @return представление записей, пути которых лежат под директорией: от "dir/" до "dir0",
+     * так как '0' следует за '/'
+     */
+    private static <V> SortedMap<String, V> underDirectory(TreeMap<String, V> map, String directory) {
+        return map.subMap(directory + "/", directory + "0");
+    }
+
+    private void update(Set<String> changed) {
+        Map<String, List<String>> staged = new HashMap<>();
+        for (String file : changed) {
+            staged.put(file, Files.isRegularFile(root.resolve(file)) && !isOutput(file)
+                ? extractDependencies(file)
+                : null);
+        }
+
+        boolean edgesChanged = false;
+        boolean contentChanged = false;
+        Set<String> ordered = Set.copyOf(order);
+        for (Map.Entry<String, List<String>> entry : staged.entrySet()) {
+            edgesChanged |= !Objects.equals(nonEmpty(dependencies.get(entry.getKey())), nonEmpty(entry.getValue()));
+            contentChanged |= ordered.contains(entry.getKey());
+        }
+
+        Map<String, List<String>> previous = apply(staged);
+        List<String> previousOrder = order;
+        try {
+            if (edgesChanged) {
+                List<String> resolved = resolveOrder();
+                contentChanged |= !resolved.equals(order);
+                order = resolved;
+            }
+            if (contentChanged) {
+                writeOutput();
+            }
+        } catch (RuntimeException e) {
+            apply(previous);
+            order = previousOrder;
+            throw e;
+        }
+    }
+
+    /**
+     * Заменяет зависимости файлов; null удаляет файл из графа
+     * @return прежние зависимости тех же файлов для отката
+     */
+    private Map<String, List<String>> apply(Map<String, List<String>> changes) {
+        Map<String, List<String>> previous = new HashMap<>();
+        changes.forEach((file, fileDependencies) -> previous.put(file, fileDependencies == null
+            ? dependencies.remove(file)
+            : dependencies.put(file, fileDependencies)));
+        return previous;
+    }
+
+    private void rebuild() {
+        TreeMap<String, List<String>> rebuilt = new TreeMap<>();
+        for (String file : SimpleFileMerger.findTextFiles(root.toString())) {
+            if (!isOutput(file)) {
+                rebuilt.put(file, extractDependencies(file));
+            }
+        }
+        TreeMap<String, List<String>> previous = new TreeMap<>(dependencies);
+        List<String> previousOrder = order;
+        dependencies.clear();
+        dependencies.putAll(rebuilt);
+        try {
+            order = resolveOrder();
+            writeOutput();
+        } catch (RuntimeException e) {
+            dependencies.clear();
+            dependencies.putAll(previous);
+            order = previousOrder;
+            throw e;
+        }
+    }
+
+    private boolean isOutput(String file) {
+        return root.resolve(file).equals(output);
+    }
+
+    private List<String> resolveOrder() {
+        DependencyGraph.Builder graph = DependencyGraph.builder();
+        dependencies.forEach((file, fileDependencies) -> {
+            for (String dependency : fileDependencies) {
+                graph.addDependency(file, dependency);
+            }
+        });
+        return orderResolver.resolve(graph.build());
+    }
+
+    private void writeOutput() {
+        long start = System.nanoTime();
+        contentMerger.merge(order, root.toString(), output.toString());
+        synchronized (mergeCount) {
+            mergeCount.incrementAndGet();
+            mergeCount.notifyAll();
+        }
+        logger.debug("Файл {} пересобран за {} мс", output, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private List<String> extractDependencies(String file) {
+        return dependencyExtractor.extractDependencies(root.resolve(file).toString(), root.toString());
+    }
+
+    private void registerTree(Path start) throws IOException {
+        Files.walkFileTree(start, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                WatchKey key = dir.register(
+                    watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+                watchedDirectories.put(key, dir);
+                watchedPaths.put(relativize(dir), key);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private String relativize(Path path) {
+        return root.relativize(path).toString().replace('\\', '/');
+    }
+
+    private static List<String> nonEmpty(List<String> dependencies) {
+        return dependencies == null || dependencies.isEmpty() ? null : dependencies;
+    }
+}
@@ -1,5 +1,10 @@
 package filemerger;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
 /**
  * Интерфейс для объединения текстовых файлов с учетом их зависимостей
  */
@@ -8,8 +13,60 @@ public interface FileMerger {
      * Объединяет текстовые файлы с учетом их зависимостей
      * @param rootPath путь к корневой директории с файлами
      * @param outputPath путь к выходному файлу
+     * @return итоги слияния
+     * @throws filemerger.exceptions.CyclicDependencyException если найдена циклическая зависимость
+     * @throws RuntimeException если файл не найден или возникла ошибка при чтении/записи
+     */
+    default MergeResult merge(String rootPath, String outputPath) {
+        return merge(rootPath, outputPath, MergeListener.NONE);
+    }
+
+    /**
+     * Объединяет текстовые файлы с учетом их зависимостей, сообщая слушателю о ходе слияния
+     * @param rootPath путь к корневой директории с файлами
+     * @param outputPath путь к выходному файлу
+     * @param listener слушатель этапов слияния
+     * @return итоги слияния
+     * @throws filemerger.exceptions.CyclicDependencyException если найдена циклическая зависимость
+     * @throws RuntimeException если файл не найден или возникла ошибка при чтении/записи
+     */
+    MergeResult merge(String rootPath, String outputPath, MergeListener listener);
+
+    /**
+     * Объединяет текстовые файлы с учетом их зависимостей и записывает результат в канал.
+     * @see #merge(String, WritableByteChannel, MergeListener)
+     */
+    default MergeResult merge(String rootPath, WritableByteChannel output) {
+        return merge(rootPath, output, MergeListener.NONE);
+    }
+
+    /**
+     * Объединяет текстовые файлы с учетом их зависимостей и записывает результат в поток.
+     * Поток не закрывается, после записи вызывается {@link OutputStream#flush()}.
+     * @see #merge(String, WritableByteChannel, MergeListener)
+     */
+    default MergeResult merge(String rootPath, OutputStream output) {
+        MergeResult result = merge(rootPath, Channels.newChannel(output), MergeListener.NONE);
+        try {
+            output.flush();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to merge files", e);
+        }
+        return result;
+    }
+
+    /**
+     * Объединяет текстовые файлы с учетом их зависимостей и записывает результат в канал.
+     *
+     * - Результат передается в канал по мере записи и целиком в памяти не хранится
+     * - Запись блокируется, пока канал не примет данные, поэтому канал должен быть блокирующим
+     * - Канал не закрывается
+     * @param rootPath путь к корневой директории с файлами
+     * @param output канал для результата
+     * @param listener слушатель этапов слияния
+     * @return итоги слияния
      * @throws filemerger.exceptions.CyclicDependencyException если найдена циклическая зависимость
      * @throws RuntimeException если файл не найден или возникла ошибка при чтении/записи
      */
-    void merge(String rootPath, String outputPath);
-}
\ No newline at end of file
+    MergeResult merge(String rootPath, WritableByteChannel output, MergeListener listener);
+}
@@ -1,11 +1,21 @@
 package filemerger;
 
+import filemerger.dependency.CachingDependencyExtractor;
 import filemerger.dependency.InMemoryDependencyExtractor;
+import filemerger.dependency.ParallelDependencyScanner;
 import filemerger.dependency.StreamingDependencyExtractor;
+import filemerger.dependency.VectorizedDependencyExtractor;
+import filemerger.content.ChannelContentMerger;
 import filemerger.content.InMemoryContentMerger;
+import filemerger.content.IncrementalContentMerger;
+import filemerger.content.ParallelContentMerger;
+import filemerger.content.PrefetchingContentMerger;
 import filemerger.content.StreamingContentMerger;
 import filemerger.order.TopologicalOrderResolver;
 
+import java.nio.file.Path;
+import java.time.Duration;
+
 public class FileMergerFactory {
     /**
      * Создает in-memory реализацию FileMerger.
@@ -29,4 +39,190 @@ public class FileMergerFactory {
                 new StreamingContentMerger(),
                 new TopologicalOrderResolver());
     }
+
+    /**
+     * Создает потоковую реализацию, которая помимо полного слияния умеет объединять
+     * только файлы, достижимые из входных ({@link SimpleFileMerger#mergeReachable}).
+     * Полное слияние совпадает с {@link #createStreamingMerger()}.
+     * Рекомендуется использовать, когда нужен результат для нескольких входных файлов большого дерева.
+     */
+    public static SimpleFileMerger createReachableMerger() {
+        return new SimpleFileMerger(
+                new StreamingDependencyExtractor(),
+                new StreamingContentMerger(),
+                new TopologicalOrderResolver());
+    }
+
+    /**
+     * Создает потоковую реализацию FileMerger, копирующую содержимое файлов
+     * через FileChannel.transferTo без декодирования в строки.
+     * Результат побайтно совпадает с {@link #createStreamingMerger()}.
+     * Рекомендуется использовать для больших файлов.
+     */
+    public static FileMerger createZeroCopyMerger() {
+        return new SimpleFileMerger(
+                new StreamingDependencyExtractor(),
+                new ChannelContentMerger(),
+                new TopologicalOrderResolver());
+    }
+
+    /**
+     * Создает реализацию FileMerger, которая ищет директивы require в сырых байтах
+     * на Vector API, а без модуля jdk.incubator.vector — скалярным поиском.
+     * Результат совпадает с {@link #createZeroCopyMerger()}.
+     * Рекомендуется использовать для больших файлов с небольшим числом директив.
+     */
+    public static FileMerger createVectorizedMerger() {
+        return new SimpleFileMerger(
+                new VectorizedDependencyExtractor(),
+                new ChannelContentMerger(),
+                new TopologicalOrderResolver());
+    }
+
+    /**
+     * Создает потоковую реализацию FileMerger, которая читает следующие файлы
+     * в фоновых потоках, пока записывается текущий.
+     * Результат побайтно совпадает с {@link #createStreamingMerger()}.
+     * Рекомендуется использовать на хранилищах с большой задержкой чтения (NFS, облачные диски).
+     * @param prefetchDepth число файлов, читаемых заранее
+     * @param bufferBudget максимальный суммарный размер прочитанных, но не записанных файлов
+     */
+    public static FileMerger createPrefetchingMerger(int prefetchDepth, long bufferBudget) {
+        return new SimpleFileMerger(
+                new StreamingDependencyExtractor(),
+                new PrefetchingContentMerger(prefetchDepth, bufferBudget),
+                new TopologicalOrderResolver());
+    }
+
+    /**
+     * Создает реализацию FileMerger, в которой содержимое файлов копируется
+     * несколькими потоками по заранее вычисленным смещениям в выходном файле.
+     * Результат побайтно совпадает с {@link #createStreamingMerger()}.
+     * Рекомендуется использовать для очень больших деревьев на быстрых SSD.
+     * @param parallelism число потоков записи
+     */
+    public static FileMerger createParallelWriteMerger(int parallelism) {
+        return new SimpleFileMerger(
+                new StreamingDependencyExtractor(),
+                new ParallelContentMerger(parallelism, ParallelContentMerger.DEFAULT_CHUNK_SIZE),
+                new TopologicalOrderResolver());
+    }
+
+    /**
+     * Создает потоковую реализацию FileMerger, которая при повторных запусках
+     * сохраняет неизменное начало выходного файла и дописывает только
+     * изменившийся хвост. Рядом с выходным файлом хранится манифест
+     * с расположением каждого файла.
+     * Рекомендуется использовать для больших результатов, изменяемых в основном в конце.
+     */
+    public static FileMerger createIncrementalMerger() {
+        return new SimpleFileMerger(
+                new StreamingDependencyExtractor(),
+                new IncrementalContentMerger(),
+                new TopologicalOrderResolver());
+    }
+
+    /**
+     * Создает потоковую реализацию FileMerger с параллельным извлечением
+     * зависимостей. Порядок и содержимое результата совпадают с
+     * {@link #createStreamingMerger()}, число обработанных каждым воркером
+     * файлов пишется в лог.
+     * Рекомендуется использовать для деревьев с большим количеством файлов.
+     * @param parallelism число воркеров
+     */
+    public static FileMerger createParallelMerger(int parallelism) {
+        return new SimpleFileMerger(
+                new ParallelDependencyScanner(new StreamingDependencyExtractor(), parallelism),
+                new StreamingContentMerger(),
+                new TopologicalOrderResolver());
+    }
+
+    /**
+     * Создает потоковую реализацию FileMerger с постоянным кэшем зависимостей.
+     * Зависимости файлов, размер и время модификации которых не изменились
+     * с прошлого запуска, берутся из кэша без открытия файлов.
+     * Рекомендуется использовать при частых повторных запусках на одном дереве.
+     * @param cacheDirectory директория кэша, может использоваться несколькими запусками одновременно
+     */
+    public static FileMerger createCachingMerger(String cacheDirectory) {
+        return new SimpleFileMerger(
+                new CachingDependencyExtractor(new StreamingDependencyExtractor(), Path.of(cacheDirectory)),
+                new StreamingContentMerger(),
+                new TopologicalOrderResolver());
+    }
+
+    /**
+     * Создает потоковую реализацию FileMerger с постоянным индексом графа зависимостей.
+     * Индекс отображается в память при следующем запуске, пересканируются
+     * только новые и измененные файлы.
+     * Рекомендуется использовать для быстрого холодного старта на больших деревьях.
+     * @param indexFile файл индекса, по одному на корневую директорию
+     */
+    public static FileMerger createIndexedMerger(String indexFile) {
+        return new SimpleFileMerger(
+                new StreamingDependencyExtractor(),
+                new StreamingContentMerger(),
+                new TopologicalOrderResolver())
+                .withGraphIndex(Path.of(indexFile));
+    }
+
+    /**
+     * Создает потоковую реализацию FileMerger с ограниченным объемом heap.
+     * Список файлов и ребра графа хранятся на диске, порядок строится
+     * внешней сортировкой и совпадает с {@link #createStreamingMerger()}.
+     * Рекомендуется использовать для деревьев из десятков миллионов файлов.
+     * Порядок строится за столько проходов по ребрам на диске, какова глубина графа,
+     * то есть O(глубина × E) ввода-вывода: для длинных цепочек зависимостей
+     * это заметно медленнее сортировки в памяти.
+     * @param memoryBudget оценочный объем памяти для ребер графа
+     * @param workDirectory директория для временных файлов
+     */
+    public static FileMerger createExternalMerger(long memoryBudget, String workDirectory) {
+        return new ExternalFileMerger(
+                new StreamingDependencyExtractor(),
+                new StreamingContentMerger(),
+                memoryBudget,
+                Path.of(workDirectory));
+    }
+
+    /**
+     * Создает наблюдатель, пересобирающий выходной файл при изменениях в корневой директории.
+     * Наблюдение начинается после вызова {@link FileMergeWatcher#start()}.
+     * @param rootPath путь к корневой директории с файлами
+     * @param outputPath путь к выходному файлу
+     * @param debounce пауза без событий, после которой начинается пересборка
+     */
+    public static FileMergeWatcher createWatcher(String rootPath, String outputPath, Duration debounce) {
+        return new FileMergeWatcher(
+                new StreamingDependencyExtractor(),
+                new ChannelContentMerger(),
+                new TopologicalOrderResolver(),
+                rootPath,
+                outputPath,
+                debounce);
+    }
+
+    /**
+     * Создает реализацию FileMerger, читающую каждый файл один раз: байты
+     * небольших файлов хранятся в памяти от извлечения зависимостей до записи.
+     * Рекомендуется использовать, когда чтение с диска дороже памяти.
+     * @param cacheBudget максимальный суммарный размер файлов, хранимых в памяти
+     */
+    public static FileMerger createFusedMerger(long cacheBudget) {
+        return new FusedFileMerger(
+                new TopologicalOrderResolver(),
+                cacheBudget,
+                FusedFileMerger.DEFAULT_LARGE_FILE_THRESHOLD);
+    }
+
+    /**
+     * Создает реализацию FileMerger, которая выбирает извлечение зависимостей,
+     * слияние содержимого и параллелизм по статистике дерева файлов.
+     * Выбранная стратегия и причина выбора пишутся в лог.
+     * Рекомендуется использовать, когда размер входных данных заранее неизвестен.
+     * @param heapBudget допустимый объем heap для слияния в байтах
+     */
+    public static FileMerger createAdaptiveMerger(long heapBudget) {
+        return new AdaptiveFileMerger(heapBudget);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,286 @@
+package filemerger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Обход дерева файлов на основе {@link Files#walkFileTree}.
+ *
+ * - Тип и размер файла берутся из атрибутов, полученных при обходе,
+ *   дополнительный stat выполняется только для символических ссылок
+ * - Директории, подходящие под шаблоны исключения, не обходятся
+ * - Поддеревья верхних уровней могут обходиться параллельно
+ * - Результат отсортирован и не зависит от числа потоков
+ *
+ * Шаблоны задаются в синтаксисе glob. Шаблон без '/' сравнивается с именем
+ * файла или директории, шаблон с '/' — с путем относительно корня.
+ * По умолчанию выбираются все файлы с расширением .txt, директории не исключаются,
+ * что совпадает с {@link SimpleFileMerger#findTextFiles(String)}.
+ */
+public final class FileTreeWalker {
+    /** Обходчик по умолчанию: все .txt файлы, без исключений, в одном потоке */
+    public static final FileTreeWalker DEFAULT = builder().build();
+
+    private final List<PathMatcher> nameIncludes;
+    private final List<PathMatcher> pathIncludes;
+    private final List<PathMatcher> namePrunes;
+    private final List<PathMatcher> pathPrunes;
+    private final int parallelism;
+    private final int splitDepth;
+
+    private FileTreeWalker(Builder builder) {
+        FileSystem fileSystem = FileSystems.getDefault();
+        this.nameIncludes = new ArrayList<>();
+        this.pathIncludes = new ArrayList<>();
+        this.namePrunes = new ArrayList<>();
+        this.pathPrunes = new ArrayList<>();
+        List<String> includes = builder.includes.isEmpty() ? List.of("*.txt") : builder.includes;
+        for (String glob : includes) {
+            (glob.contains("/") ? pathIncludes : nameIncludes).add(fileSystem.getPathMatcher("glob:" + glob));
+        }
+        for (String glob : builder.prunes) {
+            (glob.contains("/") ? pathPrunes : namePrunes).add(fileSystem.getPathMatcher("glob:" + glob));
+        }
+        this.parallelism = builder.parallelism;
+        this.splitDepth = builder.splitDepth;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Находит подходящие файлы
+     * @param rootPath путь к корневой директории
+     * @return отсортированные пути относительно корня с разделителем '/'
+     */
+    public List<String> walk(String rootPath) {
+        List<Entry> entries = walkEntries(rootPath);
+        List<String> files = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            files.add(entry.path);
+        }
+        return files;
+    }
+
+    /**
+     * Находит подходящие файлы вместе с их размерами и временем модификации, отсортированные по пути
+     */
+    List<Entry> walkEntries(String rootPath) {
+        Path root = Path.of(rootPath).toAbsolutePath().normalize();
+        List<Entry> entries;
+        try {
+            if (parallelism > 1) {
+                ForkJoinPool pool = new ForkJoinPool(parallelism);
+                try {
+                    entries = pool.invoke(new SubtreeTask(root, root, 0));
+                } finally {
+                    pool.shutdown();
+                }
+            } else {
+                entries = new ArrayList<>();
+                walkSubtree(root, root, 0, null, entries::add);
+            }
+        } catch (UncheckedIOException e) {
+            throw new RuntimeException("Failed to find text files in: " + rootPath, e.getCause());
+        }
+        entries.sort(Comparator.comparing(entry -> entry.path));
+        return entries;
+    }
+
+    /**
+     * Передает подходящие файлы получателю по мере обхода, без сортировки
+     * и без накопления списка, в текущем потоке
+     */
+    void visit(String rootPath, Consumer<Entry> consumer) {
+        Path root = Path.of(rootPath).toAbsolutePath().normalize();
+        try {
+            walkSubtree(root, root, 0, null, consumer);
+        } catch (UncheckedIOException e) {
+            throw new RuntimeException("Failed to find text files in: " + rootPath, e.getCause());
+        }
+    }
+
+    private void walkSubtree(Path root, Path start, int startDepth, List<SubtreeTask> forked, Consumer<Entry> sink) {
+        try {
+            Files.walkFileTree(start, new SimpleFileVisitor<>() {
+                private int depth = startDepth - 1;
+
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    if (!dir.equals(start)) {
+                        Path relative = root.relativize(dir);
+                        if (isPruned(relative)) {
+                            return FileVisitResult.SKIP_SUBTREE;
+                        }
+                        if (forked != null && depth < splitDepth) {
+                            SubtreeTask task = new SubtreeTask(root, dir, depth + 1);
+                            task.fork();
+                            forked.add(task);
+                            return FileVisitResult.SKIP_SUBTREE;
+                        }
+                    }
+                    depth++;
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+                    if (e != null) {
+                        throw e;
+                    }
+                    depth--;
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    BasicFileAttributes target = attrs;
+                    if (attrs.isSymbolicLink() && Files.isRegularFile(file)) {
+                        target = Files.readAttributes(file, BasicFileAttributes.class);
+                    } else if (!attrs.isRegularFile()) {
+                        return FileVisitResult.CONTINUE;
+                    }
+                    Path relative = root.relativize(file);
+                    if (isIncluded(relative)) {
+                        sink.accept(new Entry(
+                            relative.toString().replace('\\', '/'),
+                            target.size(),
+                            target.lastModifiedTime().to(TimeUnit.NANOSECONDS)));
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private boolean isIncluded(Path relative) {
+        return matches(nameIncludes, relative.getFileName()) || matches(pathIncludes, relative);
+    }
+
+    private boolean isPruned(Path relative) {
+        return matches(namePrunes, relative.getFileName()) || matches(pathPrunes, relative);
+    }
+
+    private static boolean matches(List<PathMatcher> matchers, Path path) {
+        for (PathMatcher matcher : matchers) {
+            if (matcher.matches(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Файл, найденный при обходе, с размером и временем модификации в наносекундах
+     */
+    static final class Entry {
+        final String path;
+        final long size;
+        final long modified;
+
+        Entry(String path, long size, long modified) {
+            this.path = path;
+            this.size = size;
+            this.modified = modified;
+        }
+    }
+
+    /**
+     * Обходит поддерево, отдавая директории верхних уровней отдельным задачам
+     */
+    private final class SubtreeTask extends RecursiveTask<List<Entry>> {
+        private static final long serialVersionUID = 1L;
+
+        // задачи ForkJoin сериализуемы только формально и никогда не сериализуются
+        private final transient Path root;
+        private final transient Path start;
+        private final int depth;
+
+        SubtreeTask(Path root, Path start, int depth) {
+            this.root = root;
+            this.start = start;
+            this.depth = depth;
+        }
+
+        @Override
+        protected List<Entry> compute() {
+            List<SubtreeTask> forked = new ArrayList<>();
+            List<Entry> entries = new ArrayList<>();
+            walkSubtree(root, start, depth, forked, entries::add);
+            for (SubtreeTask task : forked) {
+                entries.addAll(task.join());
+            }
+            return entries;
+        }
+    }
+
+    public static final class Builder {
+        private final List<String> includes = new ArrayList<>();
+        private final List<String> prunes = new ArrayList<>();
+        private int parallelism = 1;
+        private int splitDepth = 2;
+
+        private Builder() {
+        }
+
+        /**
+         * Добавляет шаблон выбираемых файлов. Если шаблоны не заданы, выбираются файлы *.txt
+         */
+        public Builder include(String glob) {
+            includes.add(glob);
+            return this;
+        }
+
+        /**
+         * Добавляет шаблон директорий, которые не нужно обходить, например ".git" или "node_modules"
+         */
+        public Builder prune(String glob) {
+            prunes.add(glob);
+            return this;
+        }
+
+        /**
+         * @param parallelism число потоков обхода, 1 — обход в текущем потоке
+         */
+        public Builder parallelism(int parallelism) {
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * @param splitDepth глубина, до которой поддиректории обходятся отдельными задачами
+         */
+        public Builder splitDepth(int splitDepth) {
+            if (splitDepth < 0) {
+                throw new IllegalArgumentException("Split depth must not be negative: " + splitDepth);
+            }
+            this.splitDepth = splitDepth;
+            return this;
+        }
+
+        public FileTreeWalker build() {
+            return new FileTreeWalker(this);
+        }
+    }
+}
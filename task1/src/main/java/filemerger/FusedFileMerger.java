@@ -0,0 +1,251 @@
+package filemerger;
+
+import filemerger.buffer.DirectBufferPool;
+import filemerger.content.ByteTrimmer;
+import filemerger.content.FileTransfer;
+import filemerger.dependency.RequireDirectiveScanner;
+import filemerger.dependency.StreamingDependencyExtractor;
+import filemerger.order.DependencyGraph;
+import filemerger.order.OrderResolver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Реализация FileMerger, читающая каждый файл один раз.
+ *
+ * - Небольшие файлы читаются целиком, из байтов извлекаются зависимости,
+ *   а сами байты остаются в ограниченном кэше до записи в результат
+ * - Файл без зависимостей, на который еще никто не сослался, кэшируется условно:
+ *   его вытесняют файлы с ребрами, а если ссылка так и не появилась, он не попадает
+ *   в результат и удаляется из кэша до записи
+ * - Файлы больше порога сканируются потоково и перечитываются при записи
+ * - Файлы, не поместившиеся в кэш, перечитываются при записи; буфер поиска
+ *   их краев берется из {@link DirectBufferPool}, а в статистику чтения идет
+ *   только перечитанная часть без пробельных краев
+ * - Результат побайтно совпадает с потоковой реализацией
+ */
+public class FusedFileMerger implements FileMerger {
+    private static final Logger logger = LoggerFactory.getLogger(FusedFileMerger.class);
+    private static final byte[] SEPARATOR = "\n\n".getBytes(StandardCharsets.UTF_8);
+    private static final int SCAN_BUFFER_SIZE = 4096;
+
+    public static final long DEFAULT_CACHE_BUDGET = 256L * 1024 * 1024;
+    public static final long DEFAULT_LARGE_FILE_THRESHOLD = 1024 * 1024;
+
+    private final OrderResolver orderResolver;
+    private final long cacheBudget;
+    private final long largeFileThreshold;
+    private final StreamingDependencyExtractor largeFileExtractor = new StreamingDependencyExtractor();
+
+    private volatile long lastBytesRead;
+    private volatile long lastInputBytes;
+
+    public FusedFileMerger(OrderResolver orderResolver) {
+        this(orderResolver, DEFAULT_CACHE_BUDGET, DEFAULT_LARGE_FILE_THRESHOLD);
+    }
+
+    /**
+     * @param orderResolver сортировщик зависимостей
+     * @param cacheBudget максимальный суммарный размер файлов, хранимых в памяти до записи
+     * @param largeFileThreshold размер, начиная с которого файл не кэшируется
+     */
+    public FusedFileMerger(OrderResolver orderResolver, long cacheBudget, long largeFileThreshold) {
+        if (largeFileThreshold < 0 || largeFileThreshold > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Large file threshold is out of range: " + largeFileThreshold);
+        }
+        this.orderResolver = orderResolver;
+        this.cacheBudget = cacheBudget;
+        this.largeFileThreshold = largeFileThreshold;
+    }
+
+    @Override
+    public MergeResult merge(String rootPath, String outputPath, MergeListener listener) {
+        MergeTracker tracker = new MergeTracker(listener);
+        tracker.startStage(MergeStage.WALK);
+        List<String> files = SimpleFileMerger.findTextFiles(rootPath);
+        tracker.completeStage();
+        return merge(files, rootPath, MergeTarget.of(outputPath), tracker);
+    }
+
+    @Override
+    public MergeResult merge(String rootPath, WritableByteChannel output, MergeListener listener) {
+        MergeTracker tracker = new MergeTracker(listener);
+        tracker.startStage(MergeStage.WALK);
+        List<String> files = SimpleFileMerger.findTextFiles(rootPath);
+        tracker.completeStage();
+        return merge(files, rootPath, MergeTarget.of(output), tracker);
+    }
+
+    MergeResult merge(List<String> files, String rootPath, MergeTarget target, MergeTracker tracker) {
+        tracker.setFileCount(files.size());
+        tracker.startStage(MergeStage.EXTRACT);
+        Map<String, byte[]> cache = new HashMap<>();
+        // файлы без зависимостей, на которые пока никто не сослался, в порядке кэширования
+        Map<String, byte[]> unreferenced = new LinkedHashMap<>();
+        DependencyGraph.Builder graph = DependencyGraph.builder();
+        long cachedBytes = 0;
+        long bytesRead = 0;
+        long inputBytes = 0;
+
+        for (String file : files) {
+            Path path = Path.of(rootPath, file);
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                long size = channel.size();
+                List<String> dependencies;
+
+                if (size > largeFileThreshold) {
+                    dependencies = largeFileExtractor.extractDependencies(path.toString(), rootPath);
+                } else {
+                    byte[] bytes = readFully(channel, (int) size);
+                    dependencies = scanDependencies(bytes);
+                    boolean hasEdges = !dependencies.isEmpty() || graph.contains(file);
+                    if (hasEdges) {
+                        cachedBytes -= evict(unreferenced, cachedBytes + size - cacheBudget);
+                    }
+                    if (cachedBytes + size <= cacheBudget) {
+                        (hasEdges ? cache : unreferenced).put(file, bytes);
+                        cachedBytes += size;
+                    }
+                }
+
+                bytesRead += size;
+                inputBytes += size;
+                for (String dependency : dependencies) {
+                    graph.addDependency(file, dependency);
+                    byte[] referenced = unreferenced.remove(dependency);
+                    if (referenced != null) {
+                        cache.put(dependency, referenced);
+                    }
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to read file: " + file, e);
+            }
+        }
+
+        // на оставшиеся файлы никто не сослался, в результат они не попадут
+        unreferenced.clear();
+        tracker.completeStage();
+
+        tracker.startStage(MergeStage.RESOLVE);
+        DependencyGraph dependencyGraph = graph.build();
+        List<String> sorted = orderResolver.resolve(dependencyGraph);
+        tracker.setGraph(dependencyGraph);
+        tracker.completeStage();
+
+        tracker.startStage(MergeStage.WRITE);
+        bytesRead += write(sorted, cache, rootPath, target);
+        tracker.addEstimatedBytesRead(bytesRead);
+        tracker.completeStage();
+
+        lastBytesRead = bytesRead;
+        lastInputBytes = inputBytes;
+        logger.info("Прочитано {} байт при размере входных файлов {} байт", bytesRead, inputBytes);
+        return tracker.finish(target);
+    }
+
+    /**
+     * @return число байт, прочитанных последним слиянием: размеры всех файлов
+     * плюс перечитанное при записи содержимое без пробельных краев
+     */
+    public long getLastBytesRead() {
+        return lastBytesRead;
+    }
+
+    /**
+     * @return суммарный размер найденных файлов при последнем слиянии
+     */
+    public long getLastInputBytes() {
+        return lastInputBytes;
+    }
+
+    private static long write(List<String> sorted, Map<String, byte[]> cache, String rootPath, MergeTarget target) {
+        long bytesRead = 0;
+
+        DirectBufferPool bufferPool = DirectBufferPool.shared();
+        ByteBuffer pooled = bufferPool.acquire();
+        try (WritableByteChannel output = target.open()) {
+            ByteBuffer scanBuffer = pooled.slice(0, Math.min(SCAN_BUFFER_SIZE, pooled.capacity()));
+            boolean first = true;
+
+            for (String file : sorted) {
+                if (!first) {
+                    writeFully(output, ByteBuffer.wrap(SEPARATOR));
+                }
+                first = false;
+
+                byte[] bytes = cache.remove(file);
+                if (bytes != null) {
+                    int start = ByteTrimmer.findStart(bytes, 0, bytes.length);
+                    int end = ByteTrimmer.findEnd(bytes, start, bytes.length);
+                    writeFully(output, ByteBuffer.wrap(bytes, start, end - start));
+                    continue;
+                }
+
+                Path path = Path.of(rootPath, file);
+                try (FileChannel input = FileChannel.open(path, StandardOpenOption.READ)) {
+                    long start = ByteTrimmer.findStart(input, scanBuffer);
+                    long end = ByteTrimmer.findEnd(input, start, scanBuffer);
+                    bytesRead += end - start;
+                    FileTransfer.transferFully(input, start, end, output, path);
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to merge files", e);
+        } finally {
+            bufferPool.release(pooled);
+        }
+        return bytesRead;
+    }
+
+    /**
+     * Вытесняет условно закэшированные файлы, начиная с самых старых
+     * @return освобожденный объем
+     */
+    private static long evict(Map<String, byte[]> unreferenced, long needed) {
+        long freed = 0;
+        Iterator<byte[]> entries = unreferenced.values().iterator();
+        while (freed < needed && entries.hasNext()) {
+            freed += entries.next().length;
+            entries.remove();
+        }
+        return freed;
+    }
+
+    private static List<String> scanDependencies(byte[] bytes) throws IOException {
+        CharBuffer chars = StandardCharsets.UTF_8.newDecoder().decode(ByteBuffer.wrap(bytes));
+        RequireDirectiveScanner scanner = new RequireDirectiveScanner();
+        scanner.feed(chars.array(), chars.arrayOffset() + chars.position(), chars.remaining());
+        return scanner.getDependencies();
+    }
+
+    private static byte[] readFully(FileChannel channel, int size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                break;
+            }
+        }
+        return buffer.position() == size ? buffer.array() : Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    private static void writeFully(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,470 @@
+package filemerger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Постоянный индекс графа зависимостей, отображаемый в память.
+ *
+ * - Таблица путей хранит каждый путь один раз в UTF-8, отсортированной
+ *   побайтно, поиск пути выполняется двоичным поиском без декодирования таблицы
+ * - Зависимости хранятся в формате CSR: для каждого пути непрерывный диапазон
+ *   идентификаторов путей, от которых он зависит, в порядке директив
+ * - Для каждого просканированного файла хранятся размер и время модификации;
+ *   пути, встречавшиеся только как зависимости, отмечены размером -1
+ * - Для файлов, измененных не раньше чем за {@link #RACY_WINDOW_NANOS} до сканирования,
+ *   дополнительно хранится SHA-256 содержимого: правка с сохранением размера в тот же тик
+ *   часов файловой системы не меняет отпечаток, поэтому такие файлы сверяются по хэшу,
+ *   как в кэше зависимостей и манифесте инкрементального слияния
+ * - Индекс привязан к абсолютному пути корневой директории
+ * - При загрузке проверяются смещения и идентификаторы ребер, поэтому поврежденный
+ *   индекс не приводит к ошибке слияния, а перестраивается
+ * - Отображение не освобождается принудительно: {@link #close()} лишь отпускает ссылку,
+ *   а память отображения возвращает сборщик мусора, поэтому обращение к закрытому
+ *   индексу не может обрушить JVM. На Windows файл с живым отображением нельзя
+ *   заменить, и перезапись индекса может не удаться до сборки мусора — тогда
+ *   слияние продолжается, а индекс обновится при следующем запуске
+ *
+ * Формат (big-endian):
+ * <pre>
+ * int magic, int version, int pathCount, int edgeCount, int racyCount, int rootLength, byte[rootLength] root
+ * long[pathCount] sizes, long[pathCount] modified
+ * int[racyCount] racyIds (по возрастанию), byte[racyCount * 32] racyHashes
+ * int[pathCount + 1] edgeOffsets, int[edgeCount] edges
+ * int[pathCount + 1] nameOffsets, byte[] names
+ * </pre>
+ */
+final class GraphIndex implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(GraphIndex.class);
+    private static final int MAGIC = 0x46444749;
+    private static final int FORMAT_VERSION = 2;
+    private static final int HEADER_SIZE = 24;
+    private static final int HASH_SIZE = 32;
+    /** Запас на грубые часы файловой системы, как в {@link filemerger.content.IncrementalContentMerger} */
+    static final long RACY_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(2);
+
+    private ByteBuffer buffer;
+    private final int pathCount;
+    private final int racyCount;
+    private final int sizesAt;
+    private final int modifiedAt;
+    private final int racyIdsAt;
+    private final int racyHashesAt;
+    private final int edgeOffsetsAt;
+    private final int edgesAt;
+    private final int nameOffsetsAt;
+    private final int namesAt;
+
+    private GraphIndex(ByteBuffer buffer, int pathCount, int edgeCount, int racyCount, int rootLength) {
+        this.buffer = buffer;
+        this.pathCount = pathCount;
+        this.racyCount = racyCount;
+        this.sizesAt = HEADER_SIZE + rootLength;
+        this.modifiedAt = sizesAt + 8 * pathCount;
+        this.racyIdsAt = modifiedAt + 8 * pathCount;
+        this.racyHashesAt = racyIdsAt + 4 * racyCount;
+        this.edgeOffsetsAt = racyHashesAt + HASH_SIZE * racyCount;
+        this.edgesAt = edgeOffsetsAt + 4 * (pathCount + 1);
+        this.nameOffsetsAt = edgesAt + 4 * edgeCount;
+        this.namesAt = nameOffsetsAt + 4 * (pathCount + 1);
+    }
+
+    /**
+     * @return новый пустой индекс; у каждого вызывающего свой экземпляр, поэтому
+     * закрытие одного не влияет на другие
+     */
+    private static GraphIndex empty() {
+        return new GraphIndex(ByteBuffer.allocate(0), 0, 0, 0, 0);
+    }
+
+    /**
+     * Отображает индекс в память. Отсутствующий, поврежденный или построенный
+     * для другой корневой директории индекс считается пустым.
+     * @param indexFile файл индекса
+     * @param rootPath путь к корневой директории
+     */
+    static GraphIndex load(Path indexFile, String rootPath) {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                logger.warn("Неизвестный формат индекса графа, индекс будет перестроен: {}", indexFile);
+                return empty();
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        } catch (NoSuchFileException e) {
+            return empty();
+        } catch (IOException e) {
+            logger.warn("Не удалось прочитать индекс графа, индекс будет перестроен: {}", indexFile, e);
+            return empty();
+        }
+
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+            logger.warn("Неизвестный формат индекса графа, индекс будет перестроен: {}", indexFile);
+            return empty();
+        }
+        int pathCount = buffer.getInt(8);
+        int edgeCount = buffer.getInt(12);
+        int racyCount = buffer.getInt(16);
+        int rootLength = buffer.getInt(20);
+        long expectedHeader = (long) HEADER_SIZE + rootLength + 16L * pathCount
+            + (4L + HASH_SIZE) * racyCount + 8L * (pathCount + 1) + 4L * edgeCount;
+        if (pathCount < 0 || edgeCount < 0 || racyCount < 0 || racyCount > pathCount || rootLength < 0
+                || expectedHeader > buffer.capacity()) {
+            logger.warn("Индекс графа поврежден, индекс будет перестроен: {}", indexFile);
+            return empty();
+        }
+
+        GraphIndex index = new GraphIndex(buffer, pathCount, edgeCount, racyCount, rootLength);
+        if (!index.isConsistent(edgeCount)) {
+            logger.warn("Индекс графа поврежден, индекс будет перестроен: {}", indexFile);
+            return empty();
+        }
+        byte[] root = new byte[rootLength];
+        buffer.get(HEADER_SIZE, root);
+        if (!Arrays.equals(root, encodeRoot(rootPath))) {
+            logger.info("Индекс графа {} построен для другой корневой директории и будет перестроен", indexFile);
+            return empty();
+        }
+        return index;
+    }
+
+    /**
+     * Проверяет, что смещения ребер и имен не убывают и не выходят за границы,
+     * идентификаторы ребер ссылаются на существующие пути, а идентификаторы
+     * файлов с хэшем строго возрастают
+     */
+    private boolean isConsistent(int edgeCount) {
+        if (!isMonotonic(edgeOffsetsAt, edgeCount) || !isMonotonic(nameOffsetsAt, buffer.capacity() - namesAt)) {
+            return false;
+        }
+        int previous = -1;
+        for (int i = 0; i < racyCount; i++) {
+            int id = buffer.getInt(racyIdsAt + 4 * i);
+            if (id <= previous || id >= pathCount) {
+                return false;
+            }
+            previous = id;
+        }
+        for (int i = 0; i < edgeCount; i++) {
+            int target = buffer.getInt(edgesAt + 4 * i);
+            if (target < 0 || target >= pathCount) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isMonotonic(int offsetsAt, int end) {
+        int previous = 0;
+        if (buffer.getInt(offsetsAt) != 0) {
+            return false;
+        }
+        for (int id = 1; id <= pathCount; id++) {
+            int offset = buffer.getInt(offsetsAt + 4 * id);
+            if (offset < previous) {
+                return false;
+            }
+            previous = offset;
+        }
+        return previous == end;
+    }
+
+    /**
+     * @return идентификатор пути или -1, если путь отсутствует в индексе
+     */
+    int find(String path) {
+        byte[] key = path.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = pathCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = compareName(middle, key);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param contentHash SHA-256 текущего содержимого; вызывается, только если у записи есть хэш
+     * @return true, если файл был просканирован с теми же размером и временем модификации,
+     * а для записи, сделанной вскоре после изменения файла, совпал и хэш содержимого
+     */
+    boolean isFresh(int id, long size, long modified, Supplier<byte[]> contentHash) {
+        if (buffer.getLong(sizesAt + 8 * id) != size || buffer.getLong(modifiedAt + 8 * id) != modified) {
+            return false;
+        }
+        int racy = findRacy(id);
+        if (racy < 0) {
+            return true;
+        }
+        byte[] stored = new byte[HASH_SIZE];
+        buffer.get(racyHashesAt + HASH_SIZE * racy, stored);
+        return Arrays.equals(stored, contentHash.get());
+    }
+
+    private int findRacy(int id) {
+        int low = 0;
+        int high = racyCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int racyId = buffer.getInt(racyIdsAt + 4 * middle);
+            if (racyId < id) {
+                low = middle + 1;
+            } else if (racyId > id) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return зависимости файла в порядке директив
+     */
+    List<String> dependencies(int id) {
+        int start = buffer.getInt(edgeOffsetsAt + 4 * id);
+        int end = buffer.getInt(edgeOffsetsAt + 4 * (id + 1));
+        List<String> dependencies = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++) {
+            dependencies.add(name(buffer.getInt(edgesAt + 4 * i)));
+        }
+        return dependencies;
+    }
+
+    /**
+     * @return число просканированных файлов в индексе
+     */
+    int fileCount() {
+        int count = 0;
+        for (int id = 0; id < pathCount; id++) {
+            if (buffer.getLong(sizesAt + 8 * id) >= 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Отпускает ссылку на отображение, его освободит сборщик мусора.
+     * После закрытия индекс использовать нельзя.
+     */
+    @Override
+    public void close() {
+        buffer = null;
+    }
+
+    /**
+     * @return true, если файл изменен слишком недавно, чтобы доверять его размеру и времени модификации
+     */
+    static boolean isRacy(long modified) {
+        return TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis()) - modified < RACY_WINDOW_NANOS;
+    }
+
+    /**
+     * @return SHA-256 содержимого файла
+     */
+    static byte[] hash(Path file) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return digest.digest(Files.readAllBytes(file));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read file: " + file, e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Записывает индекс без хэшей содержимого
+     * @see #write(Path, String, List, long[], long[], byte[][], List)
+     */
+    static void write(
+        Path indexFile,
+        String rootPath,
+        List<String> files,
+        long[] sizes,
+        long[] modified,
+        List<List<String>> dependencies
+    ) throws IOException {
+        write(indexFile, rootPath, files, sizes, modified, new byte[files.size()][], dependencies);
+    }
+
+    /**
+     * Атомарно записывает индекс: сначала во временный файл рядом, затем переименованием
+     * @param indexFile файл индекса
+     * @param rootPath путь к корневой директории
+     * @param files просканированные файлы относительно корня
+     * @param sizes размеры файлов
+     * @param modified времена модификации файлов в наносекундах
+     * @param hashes SHA-256 содержимого, посчитанный до извлечения зависимостей, или null;
+     *               сохраняется только для файлов, измененных в пределах {@link #RACY_WINDOW_NANOS}
+     * @param dependencies зависимости файлов
+     */
+    static void write(
+        Path indexFile,
+        String rootPath,
+        List<String> files,
+        long[] sizes,
+        long[] modified,
+        byte[][] hashes,
+        List<List<String>> dependencies
+    ) throws IOException {
+        Map<String, Integer> ids = new HashMap<>();
+        List<byte[]> names = new ArrayList<>();
+        for (int i = 0; i < files.size(); i++) {
+            intern(files.get(i), ids, names);
+            for (String dependency : dependencies.get(i)) {
+                intern(dependency, ids, names);
+            }
+        }
+
+        int pathCount = names.size();
+        Integer[] order = new Integer[pathCount];
+        for (int i = 0; i < pathCount; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (left, right) -> Arrays.compareUnsigned(names.get(left), names.get(right)));
+        int[] rank = new int[pathCount];
+        for (int i = 0; i < pathCount; i++) {
+            rank[order[i]] = i;
+        }
+
+        int[] fileAt = new int[pathCount];
+        Arrays.fill(fileAt, -1);
+        int edgeCount = 0;
+        for (int i = 0; i < files.size(); i++) {
+            fileAt[rank[ids.get(files.get(i))]] = i;
+            edgeCount += dependencies.get(i).size();
+        }
+        List<Integer> racyIds = new ArrayList<>();
+        for (int id = 0; id < pathCount; id++) {
+            int file = fileAt[id];
+            if (file >= 0 && hashes[file] != null && isRacy(modified[file])) {
+                racyIds.add(id);
+            }
+        }
+
+        Path directory = indexFile.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, indexFile.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                byte[] root = encodeRoot(rootPath);
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(pathCount);
+                out.writeInt(edgeCount);
+                out.writeInt(racyIds.size());
+                out.writeInt(root.length);
+                out.write(root);
+
+                for (int id = 0; id < pathCount; id++) {
+                    out.writeLong(fileAt[id] >= 0 ? sizes[fileAt[id]] : -1);
+                }
+                for (int id = 0; id < pathCount; id++) {
+                    out.writeLong(fileAt[id] >= 0 ? modified[fileAt[id]] : 0);
+                }
+                for (int id : racyIds) {
+                    out.writeInt(id);
+                }
+                for (int id : racyIds) {
+                    out.write(hashes[fileAt[id]]);
+                }
+
+                int offset = 0;
+                for (int id = 0; id < pathCount; id++) {
+                    out.writeInt(offset);
+                    if (fileAt[id] >= 0) {
+                        offset += dependencies.get(fileAt[id]).size();
+                    }
+                }
+                out.writeInt(offset);
+                for (int id = 0; id < pathCount; id++) {
+                    if (fileAt[id] >= 0) {
+                        for (String dependency : dependencies.get(fileAt[id])) {
+                            out.writeInt(rank[ids.get(dependency)]);
+                        }
+                    }
+                }
+
+                offset = 0;
+                for (int id = 0; id < pathCount; id++) {
+                    out.writeInt(offset);
+                    offset += names.get(order[id]).length;
+                }
+                out.writeInt(offset);
+                for (int id = 0; id < pathCount; id++) {
+                    out.write(names.get(order[id]));
+                }
+            }
+            Files.move(temp, indexFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private String name(int id) {
+        int start = nameOffset(id);
+        byte[] bytes = new byte[nameOffset(id + 1) - start];
+        buffer.get(namesAt + start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int nameOffset(int id) {
+        return buffer.getInt(nameOffsetsAt + 4 * id);
+    }
+
+    private int compareName(int id, byte[] key) {
+        int start = namesAt + nameOffset(id);
+        int length = nameOffset(id + 1) - nameOffset(id);
+        int common = Math.min(length, key.length);
+        for (int i = 0; i < common; i++) {
+            int comparison = Integer.compare(buffer.get(start + i) & 0xFF, key[i] & 0xFF);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return Integer.compare(length, key.length);
+    }
+
+    private static void intern(String name, Map<String, Integer> ids, List<byte[]> names) {
+        if (!ids.containsKey(name)) {
+            ids.put(name, names.size());
+            names.add(name.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static byte[] encodeRoot(String rootPath) {
+        return Path.of(rootPath).toAbsolutePath().normalize().toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,35 @@
+package filemerger;
+
+import java.time.Duration;
+
+/**
+ * Получатель событий слияния. Все методы вызываются в потоке, выполняющем
+ * слияние, и по умолчанию ничего не делают.
+ */
+public interface MergeListener {
+    /** Слушатель, игнорирующий все события */
+    MergeListener NONE = new MergeListener() {
+    };
+
+    /**
+     * Вызывается перед началом этапа
+     * @param stage этап
+     */
+    default void onStageStarted(MergeStage stage) {
+    }
+
+    /**
+     * Вызывается после завершения этапа
+     * @param stage этап
+     * @param duration время выполнения этапа
+     */
+    default void onStageCompleted(MergeStage stage, Duration duration) {
+    }
+
+    /**
+     * Вызывается после успешного завершения слияния
+     * @param result итоги слияния
+     */
+    default void onMergeCompleted(MergeResult result) {
+    }
+}
@@ -0,0 +1,122 @@
+package filemerger;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Итоги слияния файлов
+ */
+public final class MergeResult {
+    private final int fileCount;
+    private final int nodeCount;
+    private final int edgeCount;
+    private final long estimatedBytesRead;
+    private final long outputSize;
+    private final long writtenBytes;
+    private final Map<MergeStage, Duration> stageDurations;
+    private final Duration totalDuration;
+
+    MergeResult(
+        int fileCount,
+        int nodeCount,
+        int edgeCount,
+        long estimatedBytesRead,
+        long outputSize,
+        long writtenBytes,
+        Map<MergeStage, Duration> stageDurations,
+        Duration totalDuration
+    ) {
+        this.fileCount = fileCount;
+        this.nodeCount = nodeCount;
+        this.edgeCount = edgeCount;
+        this.estimatedBytesRead = estimatedBytesRead;
+        this.outputSize = outputSize;
+        this.writtenBytes = writtenBytes;
+        this.stageDurations = Collections.unmodifiableMap(new EnumMap<>(stageDurations));
+        this.totalDuration = totalDuration;
+    }
+
+    /**
+     * @return число найденных текстовых файлов
+     */
+    public int getFileCount() {
+        return fileCount;
+    }
+
+    /**
+     * @return число узлов графа зависимостей, то есть файлов в результате
+     */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * @return число различных ребер графа зависимостей
+     */
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * Оценка объема чтения по размерам файлов из обхода, а не замер ввода-вывода.
+     *
+     * - Учитываются размеры файлов, переданных извлекателю зависимостей, и размеры
+     *   файлов, переданных объединителю содержимого, поэтому файл из результата учитывается дважды
+     * - Фактическое чтение может быть меньше: попадания в кэш зависимостей не открывают
+     *   файл, а инкрементальный объединитель не читает неизмененные части
+     * @return оценочный объем чтения в байтах
+     */
+    public long getEstimatedBytesRead() {
+        return estimatedBytesRead;
+    }
+
+    /**
+     * Размер результата, а не объем записи: инкрементальный объединитель
+     * может переписать только часть выходного файла
+     * @return размер выходного файла или число байт, записанных в канал
+     * @see #getWrittenBytes()
+     */
+    public long getOutputSize() {
+        return outputSize;
+    }
+
+    /**
+     * Объем записи этого слияния: совпадает с размером результата, если он переписан целиком,
+     * и меньше него, если инкрементальный объединитель дописал только измененный хвост
+     * @return число байт, записанных в выходной файл или канал
+     */
+    public long getWrittenBytes() {
+        return writtenBytes;
+    }
+
+    /**
+     * @return время выполнения этапа или {@link Duration#ZERO}, если этап не выполнялся
+     */
+    public Duration getStageDuration(MergeStage stage) {
+        return stageDurations.getOrDefault(stage, Duration.ZERO);
+    }
+
+    public Map<MergeStage, Duration> getStageDurations() {
+        return stageDurations;
+    }
+
+    public Duration getTotalDuration() {
+        return totalDuration;
+    }
+
+    @Override
+    public String toString() {
+        return "MergeResult{" +
+            "files=" + fileCount +
+            ", nodes=" + nodeCount +
+            ", edges=" + edgeCount +
+            ", estimatedBytesRead=" + estimatedBytesRead +
+            ", outputSize=" + outputSize +
+            ", writtenBytes=" + writtenBytes +
+            ", stages=" + stageDurations +
+            ", total=" + totalDuration +
+            '}';
+    }
+}
@@ -0,0 +1,15 @@
+package filemerger;
+
+/**
+ * Этапы слияния файлов
+ */
+public enum MergeStage {
+    /** Обход корневой директории */
+    WALK,
+    /** Извлечение зависимостей */
+    EXTRACT,
+    /** Определение порядка файлов */
+    RESOLVE,
+    /** Запись результата */
+    WRITE
+}
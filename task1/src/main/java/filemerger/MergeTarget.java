@@ -0,0 +1,131 @@
+package filemerger;
+
+import filemerger.content.ContentMerger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Место записи результата слияния: выходной файл или канал вызывающего кода.
+ * Канал вызывающего кода не закрывается, записанные в него байты подсчитываются.
+ */
+abstract class MergeTarget {
+    static MergeTarget of(String outputPath) {
+        return new FileTarget(outputPath);
+    }
+
+    static MergeTarget of(WritableByteChannel channel) {
+        return new ChannelTarget(channel);
+    }
+
+    /**
+     * Записывает файлы в указанном порядке с помощью contentMerger
+     * @return число записанных байт
+     */
+    abstract long write(ContentMerger contentMerger, List<String> sortedPaths, String rootPath);
+
+    /**
+     * Открывает канал для самостоятельной записи результата.
+     * Закрытие канала закрывает только выходной файл, но не канал вызывающего кода.
+     */
+    abstract WritableByteChannel open() throws IOException;
+
+    /**
+     * @return путь выходного файла или null для канала вызывающего кода
+     */
+    abstract String outputPath();
+
+    /**
+     * @return размер результата: размер выходного файла или число байт, записанных в канал
+     */
+    abstract long outputSize();
+
+    private static final class FileTarget extends MergeTarget {
+        private final String outputPath;
+
+        FileTarget(String outputPath) {
+            this.outputPath = outputPath;
+        }
+
+        @Override
+        long write(ContentMerger contentMerger, List<String> sortedPaths, String rootPath) {
+            return contentMerger.mergeCountingWrites(sortedPaths, rootPath, outputPath);
+        }
+
+        @Override
+        WritableByteChannel open() throws IOException {
+            return FileChannel.open(
+                Path.of(outputPath),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        }
+
+        @Override
+        String outputPath() {
+            return outputPath;
+        }
+
+        @Override
+        long outputSize() {
+            try {
+                return Files.size(Path.of(outputPath));
+            } catch (IOException e) {
+                return 0;
+            }
+        }
+    }
+
+    private static final class ChannelTarget extends MergeTarget implements WritableByteChannel {
+        private final WritableByteChannel channel;
+        private long written;
+
+        ChannelTarget(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        long write(ContentMerger contentMerger, List<String> sortedPaths, String rootPath) {
+            long before = written;
+            contentMerger.merge(sortedPaths, rootPath, (WritableByteChannel) this);
+            return written - before;
+        }
+
+        @Override
+        WritableByteChannel open() {
+            return this;
+        }
+
+        @Override
+        String outputPath() {
+            return null;
+        }
+
+        @Override
+        long outputSize() {
+            return written;
+        }
+
+        @Override
+        public int write(ByteBuffer source) throws IOException {
+            int count = channel.write(source);
+            written += count;
+            return count;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return channel.isOpen();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
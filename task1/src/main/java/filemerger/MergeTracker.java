@@ -0,0 +1,81 @@
+package filemerger;
+
+import filemerger.order.DependencyGraph;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Замеряет этапы одного слияния, уведомляет слушателя и собирает {@link MergeResult}.
+ * Накладные расходы ограничены несколькими вызовами System.nanoTime на слияние.
+ */
+final class MergeTracker {
+    private final MergeListener listener;
+    private final long startNanos = System.nanoTime();
+    private final Map<MergeStage, Duration> stageDurations = new EnumMap<>(MergeStage.class);
+    private MergeStage currentStage;
+    private long stageStartNanos;
+
+    private int fileCount;
+    private int nodeCount;
+    private int edgeCount;
+    private long estimatedBytesRead;
+    private long writtenBytes = -1;
+
+    MergeTracker(MergeListener listener) {
+        this.listener = listener;
+    }
+
+    void startStage(MergeStage stage) {
+        currentStage = stage;
+        stageStartNanos = System.nanoTime();
+        listener.onStageStarted(stage);
+    }
+
+    void completeStage() {
+        Duration duration = Duration.ofNanos(System.nanoTime() - stageStartNanos);
+        stageDurations.merge(currentStage, duration, Duration::plus);
+        listener.onStageCompleted(currentStage, duration);
+    }
+
+    void setFileCount(int fileCount) {
+        this.fileCount = fileCount;
+    }
+
+    void setGraph(DependencyGraph graph) {
+        setGraphSize(graph.nodeCount(), graph.edgeCount());
+    }
+
+    void setGraphSize(long nodeCount, long edgeCount) {
+        this.nodeCount = (int) Math.min(nodeCount, Integer.MAX_VALUE);
+        this.edgeCount = (int) Math.min(edgeCount, Integer.MAX_VALUE);
+    }
+
+    void addEstimatedBytesRead(long bytes) {
+        estimatedBytesRead += bytes;
+    }
+
+    /**
+     * @param writtenBytes объем записи; если не задан, результат считается записанным целиком
+     */
+    void setWrittenBytes(long writtenBytes) {
+        this.writtenBytes = writtenBytes;
+    }
+
+    MergeResult finish(MergeTarget target) {
+        long outputSize = target.outputSize();
+        MergeResult result = new MergeResult(
+            fileCount,
+            nodeCount,
+            edgeCount,
+            estimatedBytesRead,
+            outputSize,
+            writtenBytes >= 0 ? writtenBytes : outputSize,
+            stageDurations,
+            Duration.ofNanos(System.nanoTime() - startNanos)
+        );
+        listener.onMergeCompleted(result);
+        return result;
+    }
+}
@@ -1,18 +1,35 @@
 package filemerger;
 
 import filemerger.dependency.DependencyExtractor;
+import filemerger.dependency.ParallelDependencyScanner;
 import filemerger.content.ContentMerger;
+import filemerger.order.DependencyGraph;
 import filemerger.order.OrderResolver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Stream;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToLongFunction;
 
 public class SimpleFileMerger implements FileMerger {
+    private static final Logger logger = LoggerFactory.getLogger(SimpleFileMerger.class);
+
     private final DependencyExtractor dependencyExtractor;
     private final ContentMerger contentMerger;
     private final OrderResolver orderResolver;
+    private final ParallelDependencyScanner parallelScanner;
+    private final FileTreeWalker walker;
+    private final Path graphIndex;
 
     public SimpleFileMerger(
         DependencyExtractor dependencyExtractor,
@@ -22,45 +39,321 @@ public class SimpleFileMerger implements FileMerger {
         this.dependencyExtractor = dependencyExtractor;
         this.contentMerger = contentMerger;
         this.orderResolver = orderResolver;
+        this.parallelScanner = null;
+        this.walker = FileTreeWalker.DEFAULT;
+        this.graphIndex = null;
     }
 
-    public void merge(String rootPath, String outputPath) {
-        List<String> files = findTextFiles(rootPath);
+    /**
+     * Создает FileMerger с параллельным извлечением зависимостей
+     * @param parallelScanner параллельный сканер зависимостей
+     * @param contentMerger объединитель содержимого
+     * @param orderResolver сортировщик зависимостей
+     */
+    public SimpleFileMerger(
+        ParallelDependencyScanner parallelScanner,
+        ContentMerger contentMerger,
+        OrderResolver orderResolver
+    ) {
+        this.dependencyExtractor = parallelScanner.getExtractor();
+        this.contentMerger = contentMerger;
+        this.orderResolver = orderResolver;
+        this.parallelScanner = parallelScanner;
+        this.walker = FileTreeWalker.DEFAULT;
+        this.graphIndex = null;
+    }
 
-        List<String[]> dependencies = files.stream()
-            .flatMap(file -> toDependencyPairs(file, rootPath))
-            .toList();
+    private SimpleFileMerger(SimpleFileMerger merger, FileTreeWalker walker, Path graphIndex) {
+        this.dependencyExtractor = merger.dependencyExtractor;
+        this.contentMerger = merger.contentMerger;
+        this.orderResolver = merger.orderResolver;
+        this.parallelScanner = merger.parallelScanner;
+        this.walker = walker;
+        this.graphIndex = graphIndex;
+    }
 
-        List<String> sorted = orderResolver.resolve(dependencies.toArray(new String[0][]));
+    /**
+     * Создает копию FileMerger, находящую файлы указанным обходчиком,
+     * например с исключением директорий .git и node_modules
+     * @param walker обходчик дерева файлов
+     */
+    public SimpleFileMerger withWalker(FileTreeWalker walker) {
+        return new SimpleFileMerger(this, walker, graphIndex);
+    }
 
-        contentMerger.merge(sorted, rootPath, outputPath);
+    /**
+     * Создает копию FileMerger, хранящую граф зависимостей в постоянном индексе.
+     *
+     * - Индекс отображается в память в начале слияния и сверяется с обходом директории:
+     *   зависимости файлов с неизменными размером и временем модификации берутся
+     *   из индекса без открытия файлов
+     * - Пересканируются только новые и измененные файлы
+     * - После извлечения зависимостей индекс перезаписывается, если дерево изменилось
+     * @param indexFile файл индекса, по одному на корневую директорию
+     */
+    public SimpleFileMerger withGraphIndex(Path indexFile) {
+        return new SimpleFileMerger(this, walker, indexFile);
     }
 
-    private List<String> findTextFiles(String rootPath) {
-        try {
-            Path root = Path.of(rootPath).toAbsolutePath().normalize();
+    @Override
+    public MergeResult merge(String rootPath, String outputPath, MergeListener listener) {
+        MergeTracker tracker = new MergeTracker(listener);
+        tracker.startStage(MergeStage.WALK);
+        TreeStatistics statistics = TreeStatistics.collect(rootPath, walker, graphIndex != null);
+        tracker.completeStage();
+        return merge(statistics, rootPath, MergeTarget.of(outputPath), tracker);
+    }
+
+    @Override
+    public MergeResult merge(String rootPath, WritableByteChannel output, MergeListener listener) {
+        MergeTracker tracker = new MergeTracker(listener);
+        tracker.startStage(MergeStage.WALK);
+        TreeStatistics statistics = TreeStatistics.collect(rootPath, walker, graphIndex != null);
+        tracker.completeStage();
+        return merge(statistics, rootPath, MergeTarget.of(output), tracker);
+    }
+
+    /**
+     * Выходной файл внутри корневой директории не участвует в слиянии, как в {@link FileMergeWatcher}:
+     * иначе повторное слияние включило бы в результат его предыдущую версию
+     */
+    MergeResult merge(TreeStatistics statistics, String rootPath, MergeTarget target, MergeTracker tracker) {
+        String output = outputInside(rootPath, target);
+        if (output != null) {
+            statistics = statistics.without(output);
+        }
+        List<String> files = statistics.getFiles();
+        tracker.setFileCount(files.size());
+
+        tracker.startStage(MergeStage.EXTRACT);
+        DependencyGraph.Builder builder = DependencyGraph.builder();
+        List<List<String>> dependencies = graphIndex != null
+            ? scanWithIndex(statistics, rootPath, tracker)
+            : scanDependencies(files, rootPath);
+        for (int i = 0; i < files.size(); i++) {
+            addDependencies(builder, files.get(i), dependencies.get(i));
+        }
+        flushDependencyExtractor();
+        if (graphIndex == null) {
+            tracker.addEstimatedBytesRead(statistics.getTotalBytes());
+        }
+        tracker.completeStage();
+
+        return resolveAndWrite(builder, statistics::sizeOf, rootPath, target, tracker);
+    }
+
+    /**
+     * Объединяет только файлы, достижимые по директивам require из указанных файлов.
+     * @see #mergeReachable(List, String, String, MergeListener)
+     */
+    public MergeResult mergeReachable(List<String> entryPaths, String rootPath, String outputPath) {
+        return mergeReachable(entryPaths, rootPath, outputPath, MergeListener.NONE);
+    }
+
+    /**
+     * @return путь выходного файла относительно корня или null, если результат пишется
+     * в канал или вне корневой директории
+     */
+    static String outputInside(String rootPath, MergeTarget target) {
+        if (target.outputPath() == null) {
+            return null;
+        }
+        Path root = Path.of(rootPath).toAbsolutePath().normalize();
+        Path output = Path.of(target.outputPath()).toAbsolutePath().normalize();
+        return output.startsWith(root) ? root.relativize(output).toString().replace('\\', '/') : null;
+    }
+
+    /**
+     * Объединяет только файлы, достижимые по директивам require из указанных файлов.
+     *
+     * - Корневая директория не обходится, зависимости обнаруживаются по мере
+     *   продвижения от входных файлов, файлы вне достижимого множества не открываются
+     * - Уровень файла в топологическом порядке зависит только от его зависимостей,
+     *   которые все достижимы, поэтому относительный порядок файлов совпадает
+     *   с порядком при полном слиянии
+     * - Входные файлы попадают в результат, даже если у них нет зависимостей
+     * @param entryPaths входные файлы относительно корневой директории
+     * @param rootPath путь к корневой директории с файлами
+     * @param outputPath путь к выходному файлу
+     * @param listener слушатель этапов слияния
+     * @return итоги слияния
+     * @throws filemerger.exceptions.CyclicDependencyException если найдена циклическая зависимость
+     * @throws RuntimeException если входной файл не найден или возникла ошибка при чтении/записи
+     */
+    public MergeResult mergeReachable(
+        List<String> entryPaths,
+        String rootPath,
+        String outputPath,
+        MergeListener listener
+    ) {
+        MergeTracker tracker = new MergeTracker(listener);
+        tracker.startStage(MergeStage.EXTRACT);
+
+        DependencyGraph.Builder builder = DependencyGraph.builder();
+        Map<String, Long> sizes = new HashMap<>();
+        Set<String> discovered = new HashSet<>();
+        List<String> frontier = new ArrayList<>();
+        for (String entry : entryPaths) {
+            String file = entry.replace('\\', '/');
+            if (!Files.isRegularFile(Path.of(rootPath, file))) {
+                throw new RuntimeException("Entry file not found: " + entry);
+            }
+            if (discovered.add(file)) {
+                builder.addNode(file);
+                frontier.add(file);
+            }
+        }
+
+        while (!frontier.isEmpty()) {
+            List<String> files = new ArrayList<>(frontier.size());
+            for (String file : frontier) {
+                Path path = Path.of(rootPath, file);
+                if (file.endsWith(".txt") && Files.isRegularFile(path)) {
+                    files.add(file);
+                    sizes.put(file, sizeOf(path));
+                }
+            }
 
-            try (Stream<Path> walk = Files.walk(root)) {
-                List<String> files = walk
-                    .filter(Files::isRegularFile)
-                    .filter(p -> p.getFileName().toString().endsWith(".txt"))
-                    .map(p -> root.relativize(p).toString().replace('\\', '/'))
-                    .sorted()
-                    .toList();
+            List<List<String>> dependencies = scanDependencies(files, rootPath);
+            List<String> next = new ArrayList<>();
+            for (int i = 0; i < files.size(); i++) {
+                addDependencies(builder, files.get(i), dependencies.get(i));
+                for (String dependency : dependencies.get(i)) {
+                    if (discovered.add(dependency)) {
+                        next.add(dependency);
+                    }
+                }
+            }
+            tracker.setFileCount(sizes.size());
+            frontier = next;
+        }
+        flushDependencyExtractor();
+        for (long size : sizes.values()) {
+            tracker.addEstimatedBytesRead(size);
+        }
+        tracker.completeStage();
+
+        return resolveAndWrite(builder, file -> sizes.getOrDefault(file, 0L), rootPath, MergeTarget.of(outputPath), tracker);
+    }
+
+    private MergeResult resolveAndWrite(
+        DependencyGraph.Builder builder,
+        ToLongFunction<String> sizeOf,
+        String rootPath,
+        MergeTarget target,
+        MergeTracker tracker
+    ) {
+        tracker.startStage(MergeStage.RESOLVE);
+        DependencyGraph graph = builder.build();
+        List<String> sorted = orderResolver.resolve(graph);
+        tracker.setGraph(graph);
+        tracker.completeStage();
+
+        tracker.startStage(MergeStage.WRITE);
+        tracker.setWrittenBytes(target.write(contentMerger, sorted, rootPath));
+        for (String file : sorted) {
+            tracker.addEstimatedBytesRead(sizeOf.applyAsLong(file));
+        }
+        tracker.completeStage();
+
+        return tracker.finish(target);
+    }
+
+    private List<List<String>> scanWithIndex(TreeStatistics statistics, String rootPath, MergeTracker tracker) {
+        List<String> files = statistics.getFiles();
+        GraphIndex index = GraphIndex.load(graphIndex, rootPath);
+
+        List<List<String>> dependencies = new ArrayList<>(files.size());
+        long[] sizes = new long[files.size()];
+        long[] modified = new long[files.size()];
+        byte[][] hashes = new byte[files.size()][];
+        List<String> stale = new ArrayList<>();
+        List<Integer> staleAt = new ArrayList<>();
+        int indexedFiles;
+        try (index) {
+            for (int i = 0; i < files.size(); i++) {
+                String file = files.get(i);
+                sizes[i] = statistics.sizeAt(i);
+                modified[i] = statistics.modifiedAt(i);
+                Path path = Path.of(rootPath, file);
+                if (GraphIndex.isRacy(modified[i])) {
+                    hashes[i] = GraphIndex.hash(path);
+                }
+                int at = i;
+                int id = index.find(file);
+                if (id >= 0 && index.isFresh(id, sizes[i], modified[i],
+                        () -> hashes[at] != null ? hashes[at] : GraphIndex.hash(path))) {
+                    dependencies.add(index.dependencies(id));
+                } else {
+                    dependencies.add(null);
+                    stale.add(file);
+                    staleAt.add(i);
+                    tracker.addEstimatedBytesRead(sizes[i]);
+                }
+            }
+            indexedFiles = index.fileCount();
+        }
+
+        List<List<String>> scanned = scanDependencies(stale, rootPath);
+        for (int i = 0; i < stale.size(); i++) {
+            dependencies.set(staleAt.get(i), scanned.get(i));
+        }
+        logger.info("Индекс графа {}: актуальных файлов {}, пересканировано {}",
+            graphIndex, files.size() - stale.size(), stale.size());
 
-                return files;
+        if (!stale.isEmpty() || indexedFiles != files.size()) {
+            try {
+                GraphIndex.write(graphIndex, rootPath, files, sizes, modified, hashes, dependencies);
+            } catch (IOException e) {
+                logger.warn("Не удалось записать индекс графа: {}", graphIndex, e);
             }
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to find text files in: " + rootPath, e);
         }
+        return dependencies;
     }
 
-    private Stream<String[]> toDependencyPairs(String file, String rootPath) {
+    private List<List<String>> scanDependencies(List<String> files, String rootPath) {
+        if (parallelScanner != null) {
+            return parallelScanner.scan(files, rootPath);
+        }
+        List<List<String>> dependencies = new ArrayList<>(files.size());
+        for (String file : files) {
+            dependencies.add(extractDependencies(file, rootPath));
+        }
+        return dependencies;
+    }
+
+    static List<String> findTextFiles(String rootPath) {
+        return FileTreeWalker.DEFAULT.walk(rootPath);
+    }
+
+    private void flushDependencyExtractor() {
+        if (dependencyExtractor instanceof Flushable flushable) {
+            try {
+                flushable.flush();
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to flush dependency extractor", e);
+            }
+        }
+    }
+
+    private static long sizeOf(Path path) {
+        try {
+            return Files.size(path);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read file: " + path, e);
+        }
+    }
+
+    private List<String> extractDependencies(String file, String rootPath) {
         return dependencyExtractor.extractDependencies(
             Path.of(rootPath, file).toString(),
             rootPath
-        )
-        .stream()
-        .map(dep -> new String[]{file, dep});
+        );
+    }
+
+    private static void addDependencies(DependencyGraph.Builder graph, String file, List<String> dependencies) {
+        for (String dependency : dependencies) {
+            graph.addDependency(file, dependency);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,139 @@
+package filemerger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Статистика дерева текстовых файлов, собранная за один обход директории.
+ * Размеры берутся из атрибутов, полученных при обходе ({@link FileTreeWalker}), файлы не открываются.
+ *
+ * - Размеры и времена модификации хранятся в примитивных массивах, выровненных
+ *   с отсортированным списком файлов, без упаковки в Long
+ * - Времена модификации нужны только индексу графа и собираются по запросу
+ */
+final class TreeStatistics {
+    private final List<String> files;
+    private final long[] sizes;
+    private final long[] modifiedTimes;
+    private final long totalBytes;
+    private final long largestFileBytes;
+
+    private TreeStatistics(
+        List<String> files,
+        long[] sizes,
+        long[] modifiedTimes,
+        long totalBytes,
+        long largestFileBytes
+    ) {
+        this.files = files;
+        this.sizes = sizes;
+        this.modifiedTimes = modifiedTimes;
+        this.totalBytes = totalBytes;
+        this.largestFileBytes = largestFileBytes;
+    }
+
+    /**
+     * Находит текстовые файлы так же, как {@link SimpleFileMerger#findTextFiles(String)},
+     * и собирает их суммарный и максимальный размер
+     */
+    static TreeStatistics collect(String rootPath) {
+        return collect(rootPath, FileTreeWalker.DEFAULT, false);
+    }
+
+    /**
+     * Находит файлы указанным обходчиком и собирает их суммарный и максимальный размер
+     * @param withModifiedTimes сохранить времена модификации файлов
+     */
+    static TreeStatistics collect(String rootPath, FileTreeWalker walker, boolean withModifiedTimes) {
+        List<FileTreeWalker.Entry> entries = walker.walkEntries(rootPath);
+        List<String> files = new ArrayList<>(entries.size());
+        long[] sizes = new long[entries.size()];
+        long[] modifiedTimes = withModifiedTimes ? new long[entries.size()] : null;
+        long totalBytes = 0;
+        long largestFileBytes = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            FileTreeWalker.Entry entry = entries.get(i);
+            files.add(entry.path);
+            sizes[i] = entry.size;
+            if (modifiedTimes != null) {
+                modifiedTimes[i] = entry.modified;
+            }
+            totalBytes += entry.size;
+            largestFileBytes = Math.max(largestFileBytes, entry.size);
+        }
+        return new TreeStatistics(files, sizes, modifiedTimes, totalBytes, largestFileBytes);
+    }
+
+    /**
+     * @return статистика без указанного файла или эта же статистика, если файл не найден при обходе
+     */
+    TreeStatistics without(String file) {
+        int index = Collections.binarySearch(files, file);
+        if (index < 0) {
+            return this;
+        }
+        List<String> remaining = new ArrayList<>(files);
+        remaining.remove(index);
+        long[] remainingSizes = remove(sizes, index);
+        long largest = 0;
+        for (long size : remainingSizes) {
+            largest = Math.max(largest, size);
+        }
+        return new TreeStatistics(
+            remaining,
+            remainingSizes,
+            modifiedTimes != null ? remove(modifiedTimes, index) : null,
+            totalBytes - sizes[index],
+            largest);
+    }
+
+    private static long[] remove(long[] values, int index) {
+        long[] result = new long[values.length - 1];
+        System.arraycopy(values, 0, result, 0, index);
+        System.arraycopy(values, index + 1, result, index, values.length - index - 1);
+        return result;
+    }
+
+    List<String> getFiles() {
+        return files;
+    }
+
+    int getFileCount() {
+        return files.size();
+    }
+
+    /**
+     * @return размер файла на момент обхода или 0, если файл не найден при обходе
+     */
+    long sizeOf(String file) {
+        int index = Collections.binarySearch(files, file);
+        return index >= 0 ? sizes[index] : 0;
+    }
+
+    /**
+     * @return размер файла с указанным номером в {@link #getFiles()}
+     */
+    long sizeAt(int index) {
+        return sizes[index];
+    }
+
+    /**
+     * @return время модификации файла с указанным номером в {@link #getFiles()} в наносекундах
+     * @throws IllegalStateException если статистика собрана без времен модификации
+     */
+    long modifiedAt(int index) {
+        if (modifiedTimes == null) {
+            throw new IllegalStateException("Modification times were not collected");
+        }
+        return modifiedTimes[index];
+    }
+
+    long getTotalBytes() {
+        return totalBytes;
+    }
+
+    long getLargestFileBytes() {
+        return largestFileBytes;
+    }
+}
@@ -0,0 +1,175 @@
+package filemerger.buffer;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Пул direct-буферов одного размера с ограничением на суммарный объем off-heap памяти.
+ *
+ * - Буферы создаются лениво и переиспользуются между слияниями,
+ *   поэтому долгоживущий процесс не создает мусора на каждый файл
+ * - Если бюджет исчерпан, выдается временный heap-буфер, который при возврате
+ *   отбрасывается; такие выдачи учитываются в {@link #getOverflowCount()}
+ * - Выданные direct-буферы учитываются по идентичности: чужой или повторно
+ *   возвращенный буфер отклоняется и не может увеличить пул сверх бюджета
+ * - Потокобезопасен; выдача и возврат занимают только короткую блокировку
+ *   множества выданных буферов
+ */
+public final class DirectBufferPool {
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    public static final long DEFAULT_BUDGET = 16L * 1024 * 1024;
+
+    private static final class SharedHolder {
+        static final DirectBufferPool INSTANCE = new DirectBufferPool(
+            Integer.getInteger("filemerger.bufferPool.bufferSize", DEFAULT_BUFFER_SIZE),
+            Long.getLong("filemerger.bufferPool.budget", DEFAULT_BUDGET));
+    }
+
+    private final int bufferSize;
+    private final int maxBuffers;
+    private final ConcurrentLinkedDeque<ByteBuffer> free = new ConcurrentLinkedDeque<>();
+    /** ByteBuffer сравнивается по содержимому, поэтому выданные буферы хранятся по идентичности */
+    private final Set<ByteBuffer> lent = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final AtomicInteger allocated = new AtomicInteger();
+    private final AtomicInteger inUse = new AtomicInteger();
+    private final AtomicInteger peakInUse = new AtomicInteger();
+    private final LongAdder acquireCount = new LongAdder();
+    private final LongAdder overflowCount = new LongAdder();
+
+    /**
+     * @param bufferSize размер каждого буфера в байтах
+     * @param budget максимальный суммарный размер direct-буферов пула в байтах
+     */
+    public DirectBufferPool(int bufferSize, long budget) {
+        if (bufferSize < 1 || budget < 0) {
+            throw new IllegalArgumentException("Invalid buffer pool settings: " + bufferSize + ", " + budget);
+        }
+        this.bufferSize = bufferSize;
+        this.maxBuffers = (int) Math.min(budget / bufferSize, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Общий пул процесса. Размер буфера и бюджет задаются системными свойствами
+     * filemerger.bufferPool.bufferSize и filemerger.bufferPool.budget
+     */
+    public static DirectBufferPool shared() {
+        return SharedHolder.INSTANCE;
+    }
+
+    /**
+     * Выдает очищенный буфер размера {@link #getBufferSize()}.
+     * Буфер нужно вернуть через {@link #release(ByteBuffer)}, обычно в блоке finally.
+     */
+    public ByteBuffer acquire() {
+        acquireCount.increment();
+        ByteBuffer buffer = free.pollFirst();
+        if (buffer == null) {
+            buffer = allocate();
+            if (buffer == null) {
+                overflowCount.increment();
+                return ByteBuffer.allocate(bufferSize);
+            }
+        }
+        synchronized (lent) {
+            lent.add(buffer);
+        }
+        peakInUse.accumulateAndGet(inUse.incrementAndGet(), Math::max);
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Возвращает буфер, полученный из {@link #acquire()}. Временные heap-буферы отбрасываются.
+     * @throws IllegalArgumentException если direct-буфер выдан не этим пулом или уже возвращен
+     */
+    public void release(ByteBuffer buffer) {
+        if (!buffer.isDirect()) {
+            return;
+        }
+        boolean owned;
+        synchronized (lent) {
+            owned = lent.remove(buffer);
+        }
+        if (!owned) {
+            throw new IllegalArgumentException("Buffer was not acquired from this pool or is already released");
+        }
+        inUse.decrementAndGet();
+        free.offerFirst(buffer);
+    }
+
+    private ByteBuffer allocate() {
+        int count;
+        do {
+            count = allocated.get();
+            if (count >= maxBuffers) {
+                return null;
+            }
+        } while (!allocated.compareAndSet(count, count + 1));
+        return ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * @return максимальное число direct-буферов в пуле
+     */
+    public int getMaxBuffers() {
+        return maxBuffers;
+    }
+
+    /**
+     * @return число уже созданных direct-буферов
+     */
+    public int getAllocatedBuffers() {
+        return allocated.get();
+    }
+
+    /**
+     * @return число выданных и еще не возвращенных direct-буферов
+     */
+    public int getBuffersInUse() {
+        return inUse.get();
+    }
+
+    public int getPeakBuffersInUse() {
+        return peakInUse.get();
+    }
+
+    public long getAcquireCount() {
+        return acquireCount.sum();
+    }
+
+    /**
+     * @return число выдач временных heap-буферов из-за исчерпанного бюджета
+     */
+    public long getOverflowCount() {
+        return overflowCount.sum();
+    }
+
+    /**
+     * @return доля бюджета, занятая выданными буферами, от 0 до 1
+     */
+    public double getUtilization() {
+        return maxBuffers == 0 ? 0 : (double) inUse.get() / maxBuffers;
+    }
+
+    @Override
+    public String toString() {
+        return "DirectBufferPool{" +
+            "bufferSize=" + bufferSize +
+            ", maxBuffers=" + maxBuffers +
+            ", allocated=" + getAllocatedBuffers() +
+            ", inUse=" + getBuffersInUse() +
+            ", peakInUse=" + getPeakBuffersInUse() +
+            ", acquires=" + getAcquireCount() +
+            ", overflows=" + getOverflowCount() +
+            '}';
+    }
+}
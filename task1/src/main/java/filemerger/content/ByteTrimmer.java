@@ -0,0 +1,92 @@
+package filemerger.content;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Поиск границ содержимого файла без начальных и конечных пробельных символов.
+ *
+ * Пробельными считаются байты со значением не больше {@code ' '}, как в
+ * {@link String#trim()}. В UTF-8 такие байты встречаются только в виде
+ * однобайтовых ASCII-символов, поэтому результат совпадает с обрезкой
+ * декодированной строки. Читаются только концы файла.
+ */
+public final class ByteTrimmer {
+    private ByteTrimmer() {
+    }
+
+    public static boolean isWhitespace(byte b) {
+        return (b & 0xFF) <= ' ';
+    }
+
+    /**
+     * @return позиция первого непробельного байта или размер файла, если его нет
+     */
+    public static long findStart(FileChannel channel, ByteBuffer buffer) throws IOException {
+        long size = channel.size();
+        long position = 0;
+
+        while (position < size) {
+            int length = readAt(channel, buffer, position, (int) Math.min(buffer.capacity(), size - position));
+            for (int i = 0; i < length; i++) {
+                if (!isWhitespace(buffer.get(i))) {
+                    return position + i;
+                }
+            }
+            position += length;
+        }
+        return size;
+    }
+
+    /**
+     * @return позиция за последним непробельным байтом, не меньше {@code start}
+     */
+    public static long findEnd(FileChannel channel, long start, ByteBuffer buffer) throws IOException {
+        long position = channel.size();
+
+        while (position > start) {
+            int length = (int) Math.min(buffer.capacity(), position - start);
+            position -= length;
+            readAt(channel, buffer, position, length);
+            for (int i = length - 1; i >= 0; i--) {
+                if (!isWhitespace(buffer.get(i))) {
+                    return position + i + 1;
+                }
+            }
+        }
+        return start;
+    }
+
+    /**
+     * @return индекс первого непробельного байта в диапазоне или {@code to}, если его нет
+     */
+    public static int findStart(byte[] bytes, int from, int to) {
+        int start = from;
+        while (start < to && isWhitespace(bytes[start])) {
+            start++;
+        }
+        return start;
+    }
+
+    /**
+     * @return индекс за последним непробельным байтом в диапазоне, не меньше {@code from}
+     */
+    public static int findEnd(byte[] bytes, int from, int to) {
+        int end = to;
+        while (end > from && isWhitespace(bytes[end - 1])) {
+            end--;
+        }
+        return end;
+    }
+
+    private static int readAt(FileChannel channel, ByteBuffer buffer, long position, int length) throws IOException {
+        buffer.clear().limit(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of file at position " + (position + buffer.position()));
+            }
+        }
+        return length;
+    }
+}
@@ -0,0 +1,112 @@
+package filemerger.content;
+
+import filemerger.buffer.DirectBufferPool;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Реализация слияния содержимого файлов без копирования через heap.
+ *
+ * - Тела файлов копируются через {@link FileChannel#transferTo}, что позволяет
+ *   ядру использовать sendfile/copy_file_range
+ * - Пробельные символы по краям файла отбрасываются сканированием только концов файла,
+ *   буфер сканирования берется из {@link DirectBufferPool}
+ * - Результат побайтно совпадает с {@link StreamingContentMerger}
+ */
+public class ChannelContentMerger implements ContentMerger {
+    private static final byte[] SEPARATOR = "\n\n".getBytes(StandardCharsets.UTF_8);
+    private static final int DEFAULT_SCAN_BUFFER_SIZE = 4096;
+
+    private final int scanBufferSize;
+    private final DirectBufferPool bufferPool;
+
+    public ChannelContentMerger() {
+        this(DEFAULT_SCAN_BUFFER_SIZE);
+    }
+
+    /**
+     * @param scanBufferSize размер буфера для поиска пробельных символов по краям файла
+     */
+    public ChannelContentMerger(int scanBufferSize) {
+        this(scanBufferSize, DirectBufferPool.shared());
+    }
+
+    /**
+     * @param scanBufferSize размер буфера для поиска пробельных символов по краям файла,
+     * не больше размера буфера пула
+     * @param bufferPool пул, из которого берется буфер сканирования
+     */
+    public ChannelContentMerger(int scanBufferSize, DirectBufferPool bufferPool) {
+        if (scanBufferSize < 1) {
+            throw new IllegalArgumentException("Buffer size must be positive: " + scanBufferSize);
+        }
+        this.scanBufferSize = scanBufferSize;
+        this.bufferPool = bufferPool;
+    }
+
+    @Override
+    public void merge(List<String> sortedPaths, String rootPath, String outputPath) {
+        try (FileChannel output = FileChannel.open(
+                Path.of(outputPath),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            write(sortedPaths, rootPath, output);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to merge files", e);
+        }
+    }
+
+    @Override
+    public void merge(List<String> sortedPaths, String rootPath, WritableByteChannel output) {
+        try {
+            write(sortedPaths, rootPath, output);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to merge files", e);
+        }
+    }
+
+    private void write(List<String> sortedPaths, String rootPath, WritableByteChannel output) throws IOException {
+        ByteBuffer pooled = bufferPool.acquire();
+        try {
+            write(sortedPaths, rootPath, output, pooled.slice(0, Math.min(scanBufferSize, pooled.capacity())));
+        } finally {
+            bufferPool.release(pooled);
+        }
+    }
+
+    private static void write(
+        List<String> sortedPaths,
+        String rootPath,
+        WritableByteChannel output,
+        ByteBuffer scanBuffer
+    ) throws IOException {
+        boolean first = true;
+
+        for (String file : sortedPaths) {
+            if (!first) {
+                writeFully(output, ByteBuffer.wrap(SEPARATOR));
+            }
+            Path path = Path.of(rootPath, file);
+            try (FileChannel input = FileChannel.open(path, StandardOpenOption.READ)) {
+                long start = ByteTrimmer.findStart(input, scanBuffer);
+                long end = ByteTrimmer.findEnd(input, start, scanBuffer);
+                FileTransfer.transferFully(input, start, end, output, path);
+            }
+            first = false;
+        }
+    }
+
+    private static void writeFully(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -1,5 +1,11 @@
 package filemerger.content;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 
 public interface ContentMerger {
@@ -10,4 +16,48 @@ public interface ContentMerger {
      * @param outputPath путь для выходного файла
      */
     void merge(List<String> sortedPaths, String rootPath, String outputPath);
+
+    /**
+     * Объединяет файлы, как {@link #merge(List, String, String)}, и сообщает объем записи.
+     * Реализация по умолчанию переписывает выходной файл целиком и возвращает его размер.
+     * @return число байт, записанных в выходной файл
+     */
+    default long mergeCountingWrites(List<String> sortedPaths, String rootPath, String outputPath) {
+        merge(sortedPaths, rootPath, outputPath);
+        try {
+            return Files.size(Path.of(outputPath));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to merge files", e);
+        }
+    }
+
+    /**
+     * Объединяет файлы в указанном порядке, записывая результат в канал.
+     *
+     * - Файлы передаются в канал по очереди, результат целиком в памяти не хранится
+     * - Запись блокируется, пока канал не примет данные, поэтому канал должен быть блокирующим
+     * - Канал не закрывается
+     * - Правила обрезки и разделители те же, что при записи в файл
+     * @param sortedPaths отсортированный список путей к файлам
+     * @param rootPath корневая директория
+     * @param output канал для результата
+     */
+    void merge(List<String> sortedPaths, String rootPath, WritableByteChannel output);
+
+    /**
+     * Объединяет файлы в указанном порядке, записывая результат в поток.
+     * Поток не закрывается, после записи вызывается {@link OutputStream#flush()}.
+     * @param sortedPaths отсортированный список путей к файлам
+     * @param rootPath корневая директория
+     * @param output поток для результата
+     * @see #merge(List, String, WritableByteChannel)
+     */
+    default void merge(List<String> sortedPaths, String rootPath, OutputStream output) {
+        merge(sortedPaths, rootPath, Channels.newChannel(output));
+        try {
+            output.flush();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to merge files", e);
+        }
+    }
 }
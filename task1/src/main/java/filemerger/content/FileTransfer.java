@@ -0,0 +1,39 @@
+package filemerger.content;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+
+/**
+ * Копирование диапазона файла в канал через {@link FileChannel#transferTo}.
+ *
+ * transferTo возвращает 0, если позиция дошла до конца файла, поэтому файл,
+ * укоротившийся после поиска границ содержимого, зациклил бы копирование.
+ * Такой файл считается измененным во время слияния.
+ */
+public final class FileTransfer {
+    private FileTransfer() {
+    }
+
+    /**
+     * Копирует байты [start, end) файла в канал целиком
+     * @param file путь к файлу для сообщения об ошибке
+     * @throws RuntimeException если файл стал короче {@code end}
+     */
+    public static void transferFully(
+        FileChannel input,
+        long start,
+        long end,
+        WritableByteChannel output,
+        Path file
+    ) throws IOException {
+        while (start < end) {
+            long transferred = input.transferTo(start, end - start, output);
+            if (transferred <= 0) {
+                throw new RuntimeException("File changed during merge: " + file);
+            }
+            start += transferred;
+        }
+    }
+}
@@ -1,33 +1,67 @@
 package filemerger.content;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * In-memory реализация слияния содержимого файлов.
  *
- * - Может потреблять много памяти при большом количестве/размере файлов
+ * - Каждый файл читается в память целиком и записывается без декодирования в строку
+ * - Результат целиком в памяти не накапливается, файлы записываются по одному
+ * - Может потреблять много памяти при большом размере отдельных файлов
  */
 public class InMemoryContentMerger implements ContentMerger {
+    private static final byte[] SEPARATOR = "\n\n".getBytes(StandardCharsets.UTF_8);
+
     @Override
     public void merge(List<String> sortedPaths, String rootPath, String outputPath) {
-        try {
-            String result = sortedPaths.stream()
-                .map(path -> {
-                    try {
-                        return Files.readString(Path.of(rootPath, path));
-                    } catch (IOException e) {
-                        throw new RuntimeException("Failed to read file: " + path, e);
-                    }
-                })
-                .collect(Collectors.joining("\n\n"));
-
-            Files.writeString(Path.of(outputPath), result);
+        try (FileChannel output = FileChannel.open(
+                Path.of(outputPath),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            write(sortedPaths, rootPath, output);
         } catch (IOException e) {
             throw new RuntimeException("Failed to write output file: " + outputPath, e);
         }
     }
+
+    @Override
+    public void merge(List<String> sortedPaths, String rootPath, WritableByteChannel output) {
+        try {
+            write(sortedPaths, rootPath, output);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to merge files", e);
+        }
+    }
+
+    private static void write(List<String> sortedPaths, String rootPath, WritableByteChannel output) throws IOException {
+        boolean first = true;
+        for (String path : sortedPaths) {
+            byte[] content;
+            try {
+                content = Files.readAllBytes(Path.of(rootPath, path));
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to read file: " + path, e);
+            }
+            if (!first) {
+                writeFully(output, ByteBuffer.wrap(SEPARATOR));
+            }
+            writeFully(output, ByteBuffer.wrap(content));
+            first = false;
+        }
+    }
+
+    private static void writeFully(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
 }
@@ -0,0 +1,294 @@
+package filemerger.content;
+
+import filemerger.buffer.DirectBufferPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Инкрементальная реализация слияния содержимого файлов.
+ *
+ * - Рядом с выходным файлом хранится манифест: смещение каждого файла в
+ *   результате и отпечаток исходного файла (размер и время модификации)
+ * - Для файлов, измененных менее чем за 2 секунды до записи результата,
+ *   в манифест добавляется SHA-256 содержимого: правка в пределах той же отметки времени
+ *   с сохранением размера не меняет отпечаток, поэтому такие файлы сверяются по хэшу
+ * - Неизменный префикс результата сохраняется, файл обрезается по первому
+ *   отличающемуся сегменту и дописывается с этого места
+ * - Если выходной файл изменен в обход манифеста или манифест записан для другой
+ *   корневой директории, файл пересобирается целиком
+ * - Объем записи возвращает {@link #mergeCountingWrites}, состояние между слияниями
+ *   хранится только в манифесте, поэтому один экземпляр можно использовать из разных потоков
+ * - Результат побайтно совпадает с {@link StreamingContentMerger}
+ */
+public class IncrementalContentMerger implements ContentMerger {
+    private static final Logger logger = LoggerFactory.getLogger(IncrementalContentMerger.class);
+    private static final byte[] SEPARATOR = "\n\n".getBytes(StandardCharsets.UTF_8);
+    private static final String MANIFEST_SUFFIX = ".manifest";
+    private static final int MAGIC = 0x46444d4e;
+    private static final int FORMAT_VERSION = 3;
+    private static final int SCAN_BUFFER_SIZE = 4096;
+    /** Наибольшая точность времени модификации среди распространенных файловых систем (FAT) */
+    private static final long RACY_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(2);
+
+    @Override
+    public void merge(List<String> sortedPaths, String rootPath, String outputPath) {
+        mergeCountingWrites(sortedPaths, rootPath, outputPath);
+    }
+
+    /**
+     * @return число байт, записанных в выходной файл: 0, если результат не изменился,
+     * иначе длина дописанного хвоста
+     */
+    @Override
+    public long mergeCountingWrites(List<String> sortedPaths, String rootPath, String outputPath) {
+        Path output = Path.of(outputPath);
+        Path manifestPath = Path.of(outputPath + MANIFEST_SUFFIX);
+        String root = Path.of(rootPath).toAbsolutePath().normalize().toString();
+
+        try {
+            Manifest previous = readManifest(manifestPath, output, root);
+            List<Segment> segments = new ArrayList<>(sortedPaths.size());
+            int unchanged = 0;
+
+            for (String file : sortedPaths) {
+                Segment segment = new Segment(file, Files.readAttributes(Path.of(rootPath, file), BasicFileAttributes.class));
+                if (unchanged == segments.size() && unchanged < previous.segments.size()
+                        && previous.segments.get(unchanged).sameSource(segment, rootPath)) {
+                    segment.offset = previous.segments.get(unchanged).offset;
+                    segment.hash = previous.segments.get(unchanged).hash;
+                    unchanged++;
+                }
+                segments.add(segment);
+            }
+
+            if (unchanged == segments.size() && unchanged == previous.segments.size() && previous.outputSize >= 0) {
+                return 0;
+            }
+
+            long truncateAt = unchanged < previous.segments.size()
+                ? previous.segments.get(unchanged).offset
+                : Math.max(previous.outputSize, 0);
+            long outputSize = writeFrom(segments, unchanged, truncateAt, rootPath, output);
+
+            long writtenBytes = outputSize - truncateAt;
+            logger.debug("Файл {}: сохранено {} байт, дописано {} байт", outputPath, truncateAt, writtenBytes);
+
+            long outputModified = modifiedTime(output);
+            for (Segment segment : segments) {
+                if (outputModified - segment.sourceModified >= RACY_WINDOW_NANOS) {
+                    segment.hash = null;
+                } else if (segment.hash == null) {
+                    segment.hash = hash(Path.of(rootPath, segment.path));
+                }
+            }
+            writeManifest(manifestPath, root, new Manifest(outputSize, outputModified, segments));
+            return writtenBytes;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to merge files", e);
+        }
+    }
+
+    /**
+     * В канал нельзя дописать только изменившийся хвост, поэтому результат записывается
+     * целиком {@link ChannelContentMerger}; правила обрезки и разделители у них совпадают
+     */
+    @Override
+    public void merge(List<String> sortedPaths, String rootPath, WritableByteChannel output) {
+        new ChannelContentMerger().merge(sortedPaths, rootPath, output);
+    }
+
+    private static long writeFrom(
+        List<Segment> segments,
+        int first,
+        long truncateAt,
+        String rootPath,
+        Path output
+    ) throws IOException {
+        try (FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            out.truncate(truncateAt);
+            out.position(truncateAt);
+            ByteBuffer scanBuffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+
+            for (int i = first; i < segments.size(); i++) {
+                Segment segment = segments.get(i);
+                segment.offset = out.position();
+                if (i > 0) {
+                    ByteBuffer separator = ByteBuffer.wrap(SEPARATOR);
+                    while (separator.hasRemaining()) {
+                        out.write(separator);
+                    }
+                }
+                Path path = Path.of(rootPath, segment.path);
+                try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+                    long start = ByteTrimmer.findStart(in, scanBuffer);
+                    long end = ByteTrimmer.findEnd(in, start, scanBuffer);
+                    FileTransfer.transferFully(in, start, end, out, path);
+                }
+            }
+            return out.position();
+        }
+    }
+
+    private static Manifest readManifest(Path manifestPath, Path output, String root) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(manifestPath)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                return Manifest.EMPTY;
+            }
+            if (!root.equals(new String(in.readNBytes(in.readInt()), StandardCharsets.UTF_8))) {
+                logger.info("Манифест {} записан для другой корневой директории, файл будет пересобран целиком",
+                    manifestPath);
+                return Manifest.EMPTY;
+            }
+            long outputSize = in.readLong();
+            long outputModified = in.readLong();
+            BasicFileAttributes attributes = Files.readAttributes(output, BasicFileAttributes.class);
+            if (attributes.size() != outputSize
+                    || attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS) != outputModified) {
+                logger.info("Файл {} изменен после последнего слияния и будет пересобран целиком", output);
+                return Manifest.EMPTY;
+            }
+
+            int count = in.readInt();
+            List<Segment> segments = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String path = new String(in.readNBytes(in.readInt()), StandardCharsets.UTF_8);
+                Segment segment = new Segment(path, in.readLong(), in.readLong(), in.readLong());
+                int hashLength = in.readUnsignedShort();
+                if (hashLength > 0) {
+                    segment.hash = in.readNBytes(hashLength);
+                }
+                segments.add(segment);
+            }
+            return new Manifest(outputSize, outputModified, segments);
+        } catch (NoSuchFileException e) {
+            return Manifest.EMPTY;
+        } catch (IOException e) {
+            logger.warn("Не удалось прочитать манифест {}, файл будет пересобран целиком", manifestPath, e);
+            return Manifest.EMPTY;
+        }
+    }
+
+    private static void writeManifest(Path manifestPath, String root, Manifest manifest) throws IOException {
+        Path directory = manifestPath.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(directory, manifestPath.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                byte[] rootBytes = root.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(rootBytes.length);
+                out.write(rootBytes);
+                out.writeLong(manifest.outputSize);
+                out.writeLong(manifest.outputModified);
+                out.writeInt(manifest.segments.size());
+                for (Segment segment : manifest.segments) {
+                    byte[] path = segment.path.getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(path.length);
+                    out.write(path);
+                    out.writeLong(segment.offset);
+                    out.writeLong(segment.sourceSize);
+                    out.writeLong(segment.sourceModified);
+                    if (segment.hash == null) {
+                        out.writeShort(0);
+                    } else {
+                        out.writeShort(segment.hash.length);
+                        out.write(segment.hash);
+                    }
+                }
+            }
+            Files.move(temp, manifestPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static byte[] hash(Path path) {
+        DirectBufferPool bufferPool = DirectBufferPool.shared();
+        ByteBuffer buffer = bufferPool.acquire();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+            return digest.digest();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read file: " + path, e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        } finally {
+            bufferPool.release(buffer);
+        }
+    }
+
+    private static long modifiedTime(Path path) throws IOException {
+        return Files.getLastModifiedTime(path).to(TimeUnit.NANOSECONDS);
+    }
+
+    private static final class Manifest {
+        static final Manifest EMPTY = new Manifest(-1, 0, List.of());
+
+        final long outputSize;
+        final long outputModified;
+        final List<Segment> segments;
+
+        Manifest(long outputSize, long outputModified, List<Segment> segments) {
+            this.outputSize = outputSize;
+            this.outputModified = outputModified;
+            this.segments = segments;
+        }
+    }
+
+    private static final class Segment {
+        final String path;
+        final long sourceSize;
+        final long sourceModified;
+        long offset;
+        byte[] hash;
+
+        Segment(String path, BasicFileAttributes attributes) {
+            this(path, -1, attributes.size(), attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS));
+        }
+
+        Segment(String path, long offset, long sourceSize, long sourceModified) {
+            this.path = path;
+            this.offset = offset;
+            this.sourceSize = sourceSize;
+            this.sourceModified = sourceModified;
+        }
+
+        /**
+         * Сравнивает отпечаток сохраненного сегмента с текущим файлом;
+         * при сохраненном хэше содержимое файла перечитывается и сверяется
+         */
+        boolean sameSource(Segment current, String rootPath) {
+            return path.equals(current.path)
+                && sourceSize == current.sourceSize
+                && sourceModified == current.sourceModified
+                && (hash == null || Arrays.equals(hash, IncrementalContentMerger.hash(Path.of(rootPath, path))));
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package filemerger.content;
+
+import filemerger.buffer.DirectBufferPool;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Реализация слияния содержимого файлов параллельной записью по смещениям.
+ *
+ * - Сначала для каждого файла находятся границы без пробельных символов по краям,
+ *   по ним заранее вычисляется смещение каждого файла в результате с учетом разделителей
+ * - Выходной файл сразу получает итоговый размер
+ * - Тела файлов делятся на блоки, которые несколько потоков копируют
+ *   независимо через {@link FileChannel#write(ByteBuffer, long)}, поэтому
+ *   скорость ограничена числом ядер и диском, а не одним писателем
+ * - Разделитель перед файлом пишет тот же поток в той же записи, что и первый блок
+ *   файла, поэтому на деревьях из множества файлов нет последовательного цикла
+ *   мелких записей разделителей
+ * - Результат побайтно совпадает с {@link StreamingContentMerger}
+ */
+public class ParallelContentMerger implements ContentMerger {
+    private static final byte[] SEPARATOR = "\n\n".getBytes(StandardCharsets.UTF_8);
+    private static final int SCAN_BUFFER_SIZE = 4096;
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    public static final long DEFAULT_CHUNK_SIZE = 8L * 1024 * 1024;
+
+    private final int parallelism;
+    private final long chunkSize;
+    private final DirectBufferPool bufferPool;
+
+    public ParallelContentMerger() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param parallelism число потоков записи
+     * @param chunkSize максимальный размер блока, копируемого одним потоком за раз
+     */
+    public ParallelContentMerger(int parallelism, long chunkSize) {
+        this(parallelism, chunkSize, DirectBufferPool.shared());
+    }
+
+    /**
+     * @param parallelism число потоков записи
+     * @param chunkSize максимальный размер блока, копируемого одним потоком за раз
+     * @param bufferPool пул, из которого потоки записи берут буферы копирования
+     */
+    public ParallelContentMerger(int parallelism, long chunkSize, DirectBufferPool bufferPool) {
+        if (parallelism < 1 || chunkSize < 1) {
+            throw new IllegalArgumentException(
+                "Parallelism and chunk size must be positive: " + parallelism + ", " + chunkSize);
+        }
+        this.parallelism = parallelism;
+        this.chunkSize = chunkSize;
+        this.bufferPool = bufferPool;
+    }
+
+    @Override
+    public void merge(List<String> sortedPaths, String rootPath, String outputPath) {
+        int fileCount = sortedPaths.size();
+        Path[] paths = new Path[fileCount];
+        for (int i = 0; i < fileCount; i++) {
+            paths[i] = Path.of(rootPath, sortedPaths.get(i));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "content-writer-" + THREAD_COUNTER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try (FileChannel output = FileChannel.open(
+                Path.of(outputPath),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            long[] starts = new long[fileCount];
+            long[] ends = new long[fileCount];
+            AtomicInteger nextFile = new AtomicInteger();
+            runWorkers(executor, () -> {
+                ByteBuffer scanBuffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+                for (int i = nextFile.getAndIncrement(); i < fileCount; i = nextFile.getAndIncrement()) {
+                    try (FileChannel input = FileChannel.open(paths[i], StandardOpenOption.READ)) {
+                        starts[i] = ByteTrimmer.findStart(input, scanBuffer);
+                        ends[i] = ByteTrimmer.findEnd(input, starts[i], scanBuffer);
+                    }
+                }
+                return null;
+            });
+
+            long[] offsets = new long[fileCount];
+            List<Chunk> chunks = new ArrayList<>();
+            long size = 0;
+            for (int i = 0; i < fileCount; i++) {
+                if (i > 0) {
+                    size += SEPARATOR.length;
+                }
+                offsets[i] = size;
+                // у файла без содержимого остается блок из одного разделителя
+                boolean separator = i > 0;
+                long from = starts[i];
+                do {
+                    long to = Math.min(from + chunkSize, ends[i]);
+                    if (separator || from < to) {
+                        chunks.add(new Chunk(i, from, to, separator));
+                    }
+                    separator = false;
+                    from = to;
+                } while (from < ends[i]);
+                size += ends[i] - starts[i];
+            }
+
+            if (size > 0) {
+                output.write(ByteBuffer.wrap(new byte[1]), size - 1);
+            }
+
+            AtomicInteger nextChunk = new AtomicInteger();
+            runWorkers(executor, () -> {
+                ByteBuffer buffer = bufferPool.acquire();
+                try {
+                    for (int c = nextChunk.getAndIncrement(); c < chunks.size(); c = nextChunk.getAndIncrement()) {
+                        Chunk chunk = chunks.get(c);
+                        long outputPosition = offsets[chunk.file] + chunk.from - starts[chunk.file];
+                        if (chunk.from == chunk.to) {
+                            writeFully(output, ByteBuffer.wrap(SEPARATOR), outputPosition - SEPARATOR.length);
+                            continue;
+                        }
+                        try (FileChannel input = FileChannel.open(paths[chunk.file], StandardOpenOption.READ)) {
+                            copy(input, chunk, outputPosition, output, buffer);
+                        }
+                    }
+                } finally {
+                    bufferPool.release(buffer);
+                }
+                return null;
+            });
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to merge files", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Канал не поддерживает запись по смещениям, поэтому файлы копируются последовательно
+     * {@link ChannelContentMerger}; правила обрезки и разделители у них совпадают
+     */
+    @Override
+    public void merge(List<String> sortedPaths, String rootPath, WritableByteChannel output) {
+        new ChannelContentMerger().merge(sortedPaths, rootPath, output);
+    }
+
+    private void runWorkers(ExecutorService executor, Callable<Void> worker) throws IOException {
+        List<Future<Void>> futures = new ArrayList<>(parallelism);
+        for (int i = 0; i < parallelism; i++) {
+            futures.add(executor.submit(worker));
+        }
+        try {
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while merging files", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            throw new RuntimeException("Failed to merge files", e.getCause());
+        } finally {
+            for (Future<Void> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private static void copy(
+        FileChannel input,
+        Chunk chunk,
+        long outputPosition,
+        FileChannel output,
+        ByteBuffer buffer
+    ) throws IOException {
+        buffer.clear();
+        if (chunk.leadingSeparator) {
+            outputPosition -= SEPARATOR.length;
+            if (buffer.capacity() > SEPARATOR.length) {
+                buffer.put(SEPARATOR);
+            } else {
+                writeFully(output, ByteBuffer.wrap(SEPARATOR), outputPosition);
+                outputPosition += SEPARATOR.length;
+            }
+        }
+        long position = chunk.from;
+        while (position < chunk.to) {
+            buffer.limit((int) Math.min(buffer.capacity(), buffer.position() + chunk.to - position));
+            int read = input.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("File was truncated during merge");
+            }
+            buffer.flip();
+            int length = buffer.remaining();
+            writeFully(output, buffer, outputPosition);
+            position += read;
+            outputPosition += length;
+            buffer.clear();
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static final class Chunk {
+        final int file;
+        final long from;
+        final long to;
+        /** Перед блоком пишется разделитель, блок — первый у файла */
+        final boolean leadingSeparator;
+
+        Chunk(int file, long from, long to, boolean leadingSeparator) {
+            this.file = file;
+            this.from = from;
+            this.to = to;
+            this.leadingSeparator = leadingSeparator;
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package filemerger.content;
+
+import filemerger.buffer.DirectBufferPool;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Реализация слияния содержимого файлов с упреждающим чтением.
+ *
+ * - Следующие prefetchDepth файлов в порядке записи читаются фоновыми потоками,
+ *   пока единственный писатель записывает текущий файл
+ * - Суммарный размер прочитанных, но еще не записанных файлов ограничен бюджетом;
+ *   бюджет резервируется строго в порядке записи, поэтому писатель не может
+ *   оказаться в ожидании файла, которому не хватило памяти
+ * - Файлы больше бюджета не читаются заранее и копируются через {@link FileChannel#transferTo}
+ * - Буфер поиска краев файла берется из {@link DirectBufferPool}; прочитанное содержимое
+ *   хранится в heap-буферах по размеру файла, их объем ограничен бюджетом
+ * - Результат побайтно совпадает с {@link StreamingContentMerger}
+ */
+public class PrefetchingContentMerger implements ContentMerger {
+    private static final byte[] SEPARATOR = "\n\n".getBytes(StandardCharsets.UTF_8);
+    private static final int SCAN_BUFFER_SIZE = 4096;
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    public static final int DEFAULT_PREFETCH_DEPTH = 4;
+    public static final long DEFAULT_BUFFER_BUDGET = 64L * 1024 * 1024;
+
+    private final int prefetchDepth;
+    private final long bufferBudget;
+    private final DirectBufferPool bufferPool;
+
+    public PrefetchingContentMerger() {
+        this(DEFAULT_PREFETCH_DEPTH, DEFAULT_BUFFER_BUDGET);
+    }
+
+    /**
+     * @param prefetchDepth число файлов, читаемых заранее, и число фоновых потоков
+     * @param bufferBudget максимальный суммарный размер прочитанных, но не записанных файлов
+     */
+    public PrefetchingContentMerger(int prefetchDepth, long bufferBudget) {
+        this(prefetchDepth, bufferBudget, DirectBufferPool.shared());
+    }
+
+    /**
+     * @param prefetchDepth число файлов, читаемых заранее, и число фоновых потоков
+     * @param bufferBudget максимальный суммарный размер прочитанных, но не записанных файлов
+     * @param bufferPool пул, из которого берутся буферы поиска краев файла
+     */
+    public PrefetchingContentMerger(int prefetchDepth, long bufferBudget, DirectBufferPool bufferPool) {
+        if (prefetchDepth < 1 || bufferBudget < 1) {
+            throw new IllegalArgumentException(
+                "Prefetch depth and buffer budget must be positive: " + prefetchDepth + ", " + bufferBudget);
+        }
+        this.prefetchDepth = prefetchDepth;
+        this.bufferBudget = Math.min(bufferBudget, Integer.MAX_VALUE - 8);
+        this.bufferPool = bufferPool;
+    }
+
+    @Override
+    public void merge(List<String> sortedPaths, String rootPath, String outputPath) {
+        try (FileChannel output = FileChannel.open(
+                Path.of(outputPath),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            write(sortedPaths, rootPath, output);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to merge files", e);
+        }
+    }
+
+    @Override
+    public void merge(List<String> sortedPaths, String rootPath, WritableByteChannel output) {
+        try {
+            write(sortedPaths, rootPath, output);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to merge files", e);
+        }
+    }
+
+    private void write(List<String> sortedPaths, String rootPath, WritableByteChannel output) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(prefetchDepth, runnable -> {
+            Thread thread = new Thread(runnable, "content-prefetch-" + THREAD_COUNTER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        BufferBudget budget = new BufferBudget(bufferBudget);
+        ArrayDeque<Future<Prefetched>> pending = new ArrayDeque<>(prefetchDepth);
+
+        try {
+            int submitted = 0;
+            for (int i = 0; i < sortedPaths.size(); i++) {
+                while (submitted < sortedPaths.size() && submitted < i + prefetchDepth) {
+                    int sequence = submitted++;
+                    Path path = Path.of(rootPath, sortedPaths.get(sequence));
+                    pending.add(executor.submit(() -> prefetch(path, sequence, budget)));
+                }
+
+                Prefetched file = await(pending.poll(), sortedPaths.get(i));
+                if (i > 0) {
+                    writeFully(output, ByteBuffer.wrap(SEPARATOR));
+                }
+                if (file.content != null) {
+                    writeFully(output, file.content);
+                    budget.release(file.reserved);
+                } else {
+                    transfer(Path.of(rootPath, sortedPaths.get(i)), file.start, file.end, output);
+                }
+            }
+        } finally {
+            for (Future<Prefetched> future : pending) {
+                future.cancel(true);
+            }
+            executor.shutdownNow();
+        }
+    }
+
+    private Prefetched prefetch(Path path, int sequence, BufferBudget budget) throws IOException, InterruptedException {
+        try (FileChannel input = FileChannel.open(path, StandardOpenOption.READ)) {
+            long start;
+            long end;
+            ByteBuffer pooled = bufferPool.acquire();
+            try {
+                ByteBuffer scanBuffer = pooled.slice(0, Math.min(SCAN_BUFFER_SIZE, pooled.capacity()));
+                start = ByteTrimmer.findStart(input, scanBuffer);
+                end = ByteTrimmer.findEnd(input, start, scanBuffer);
+            } finally {
+                bufferPool.release(pooled);
+            }
+            long length = end - start;
+
+            if (length > bufferBudget) {
+                budget.skip(sequence);
+                return new Prefetched(null, 0, start, end);
+            }
+
+            budget.reserve(sequence, length);
+            ByteBuffer content = ByteBuffer.allocate((int) length);
+            long position = start;
+            while (content.hasRemaining()) {
+                int read = input.read(content, position);
+                if (read < 0) {
+                    throw new RuntimeException("File changed during merge: " + path);
+                }
+                position += read;
+            }
+            content.flip();
+            return new Prefetched(content, length, start, end);
+        }
+    }
+
+    private static Prefetched await(Future<Prefetched> future, String file) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while reading file: " + file, e);
+        } catch (ExecutionException | CancellationException e) {
+            throw new RuntimeException("Failed to read file: " + file, e.getCause() != null ? e.getCause() : e);
+        }
+    }
+
+    private static void transfer(Path path, long start, long end, WritableByteChannel output) throws IOException {
+        try (FileChannel input = FileChannel.open(path, StandardOpenOption.READ)) {
+            FileTransfer.transferFully(input, start, end, output, path);
+        }
+    }
+
+    private static void writeFully(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Бюджет памяти упреждающего чтения. Файлы резервируют память по очереди
+     * в порядке записи: пока писатель ждет файл N, все предыдущие файлы уже
+     * записаны и вернули свою память, поэтому файлу N ее всегда хватит.
+     */
+    private static final class BufferBudget {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition changed = lock.newCondition();
+        private long available;
+        private int nextSequence;
+
+        BufferBudget(long available) {
+            this.available = available;
+        }
+
+        void reserve(int sequence, long bytes) throws InterruptedException {
+            lock.lock();
+            try {
+                while (nextSequence != sequence || available < bytes) {
+                    changed.await();
+                }
+                available -= bytes;
+                nextSequence++;
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void skip(int sequence) throws InterruptedException {
+            reserve(sequence, 0);
+        }
+
+        void release(long bytes) {
+            lock.lock();
+            try {
+                available += bytes;
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static final class Prefetched {
+        final ByteBuffer content;
+        final long reserved;
+        final long start;
+        final long end;
+
+        Prefetched(ByteBuffer content, long reserved, long start, long end) {
+            this.content = content;
+            this.reserved = reserved;
+            this.start = start;
+            this.end = end;
+        }
+    }
+}
@@ -1,32 +1,107 @@
 package filemerger.content;
 
-import java.io.BufferedWriter;
+import filemerger.buffer.DirectBufferPool;
+
 import java.io.IOException;
-import java.nio.file.Files;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
 
 /**
  * Потоковая реализация слияния содержимого файлов.
  *
  * - Подходит для любого количества и размера файлов
+ * - Содержимое не декодируется: байты копируются через буфер из {@link DirectBufferPool},
+ *   пробельные символы по краям файла (байты не больше 0x20, как у {@link String#trim()})
+ *   отбрасываются на уровне байтов; для поиска краев используется начало того же буфера
  * - Может быть медленнее на маленьких файлах из-за накладных расходов
  */
 public class StreamingContentMerger implements ContentMerger {
+    private static final byte[] SEPARATOR = "\n\n".getBytes(StandardCharsets.UTF_8);
+    private static final int SCAN_BUFFER_SIZE = 4096;
+
+    private final DirectBufferPool bufferPool;
+
+    public StreamingContentMerger() {
+        this(DirectBufferPool.shared());
+    }
+
+    /**
+     * @param bufferPool пул, из которого берется буфер копирования
+     */
+    public StreamingContentMerger(DirectBufferPool bufferPool) {
+        this.bufferPool = bufferPool;
+    }
+
     @Override
     public void merge(List<String> files, String rootPath, String outputPath) {
-        try (BufferedWriter writer = Files.newBufferedWriter(Path.of(outputPath))) {
-            boolean first = true;
-            for (String file : files) {
-                if (!first) {
-                    writer.write("\n\n");
-                }
-                String content = Files.readString(Path.of(rootPath, file)).trim();
-                writer.write(content);
-                first = false;
-            }
+        try (FileChannel output = FileChannel.open(
+                Path.of(outputPath),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            write(files, rootPath, output);
         } catch (IOException e) {
             throw new RuntimeException("Failed to merge files", e);
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    public void merge(List<String> files, String rootPath, WritableByteChannel output) {
+        try {
+            write(files, rootPath, output);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to merge files", e);
+        }
+    }
+
+    private void write(List<String> files, String rootPath, WritableByteChannel output) throws IOException {
+        ByteBuffer buffer = bufferPool.acquire();
+        try {
+            write(files, rootPath, output, buffer);
+        } finally {
+            bufferPool.release(buffer);
+        }
+    }
+
+    private static void write(
+        List<String> files,
+        String rootPath,
+        WritableByteChannel output,
+        ByteBuffer buffer
+    ) throws IOException {
+        ByteBuffer scanBuffer = buffer.slice(0, Math.min(SCAN_BUFFER_SIZE, buffer.capacity()));
+        boolean first = true;
+        for (String file : files) {
+            if (!first) {
+                writeFully(output, ByteBuffer.wrap(SEPARATOR));
+            }
+            try (FileChannel input = FileChannel.open(Path.of(rootPath, file), StandardOpenOption.READ)) {
+                long start = ByteTrimmer.findStart(input, scanBuffer);
+                long end = ByteTrimmer.findEnd(input, start, scanBuffer);
+                while (start < end) {
+                    buffer.clear();
+                    buffer.limit((int) Math.min(buffer.capacity(), end - start));
+                    int read = input.read(buffer, start);
+                    if (read < 0) {
+                        break;
+                    }
+                    buffer.flip();
+                    writeFully(output, buffer);
+                    start += read;
+                }
+            }
+            first = false;
+        }
+    }
+
+    private static void writeFully(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,360 @@
+package filemerger.dependency;
+
+import filemerger.buffer.DirectBufferPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Кэширующая обертка над {@link DependencyExtractor} с хранением результатов на диске.
+ *
+ * - Ключ записи: абсолютный путь файла, размер и время модификации,
+ *   опционально SHA-256 содержимого, который считается через буфер из {@link DirectBufferPool}
+ * - Файлы с неизменными размером и временем модификации не открываются, кроме
+ *   записанных в пределах {@link #RACY_WINDOW_NANOS} после изменения файла: правка
+ *   с сохранением размера в тот же тик часов файловой системы не меняет отпечаток,
+ *   поэтому для таких записей хранится хэш содержимого и сверяется при попадании
+ * - При {@link #flush()} удаляются записи файлов под корнями текущего обхода,
+ *   которые обход не запросил и которых больше нет на диске, поэтому кэш не растет
+ *   за счет удаленных файлов
+ * - Пути и зависимости хранятся как длина и байты UTF-8 без ограничения на 64 КБ
+ * - Новые записи сохраняются при {@link #flush()}: индекс перечитывается и
+ *   перезаписывается атомарно под файловой блокировкой, поэтому параллельные
+ *   запуски с общей директорией кэша не теряют записи друг друга
+ */
+public class CachingDependencyExtractor implements DependencyExtractor, Flushable {
+    private static final Logger logger = LoggerFactory.getLogger(CachingDependencyExtractor.class);
+    private static final String INDEX_FILE = "dependencies.cache";
+    private static final String LOCK_FILE = "dependencies.lock";
+    private static final int MAGIC = 0x46444550;
+    private static final int FORMAT_VERSION = 2;
+    /** Запас на грубые часы файловой системы, как в {@link filemerger.content.IncrementalContentMerger} */
+    private static final long RACY_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(2);
+    private static final Map<Path, Object> PROCESS_LOCKS = new ConcurrentHashMap<>();
+
+    private final DependencyExtractor delegate;
+    private final Path cacheDirectory;
+    private final boolean hashContent;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Set<String> updatedKeys = ConcurrentHashMap.newKeySet();
+    private final Set<String> visitedKeys = ConcurrentHashMap.newKeySet();
+    private final Set<String> visitedRoots = ConcurrentHashMap.newKeySet();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private volatile boolean loaded;
+
+    /**
+     * @param delegate извлекатель, вызываемый при промахе кэша
+     * @param cacheDirectory директория для хранения кэша
+     */
+    public CachingDependencyExtractor(DependencyExtractor delegate, Path cacheDirectory) {
+        this(delegate, cacheDirectory, false);
+    }
+
+    /**
+     * @param delegate извлекатель, вызываемый при промахе кэша
+     * @param cacheDirectory директория для хранения кэша
+     * @param hashContent сверять хэш содержимого, если изменились размер или время модификации
+     */
+    public CachingDependencyExtractor(DependencyExtractor delegate, Path cacheDirectory, boolean hashContent) {
+        this.delegate = delegate;
+        this.cacheDirectory = cacheDirectory.toAbsolutePath().normalize();
+        this.hashContent = hashContent;
+    }
+
+    @Override
+    public List<String> extractDependencies(String filePath, String rootPath) {
+        ensureLoaded();
+        Path root = Path.of(rootPath).toAbsolutePath().normalize();
+        Path path = root.resolve(filePath).normalize();
+        String key = path.toString();
+        visitedRoots.add(root.toString());
+        visitedKeys.add(key);
+
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read file: " + filePath, e);
+        }
+        long size = attributes.size();
+        long modified = attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+
+        Entry cached = entries.get(key);
+        boolean sameMetadata = cached != null && cached.size == size && cached.modified == modified;
+        if (sameMetadata && !cached.racy) {
+            hits.increment();
+            return cached.dependencies;
+        }
+
+        // хэш считается до извлечения: если файл изменится между ними, запись не совпадет со следующим чтением
+        boolean racy = isRacy(modified);
+        byte[] hash = hashContent || racy || sameMetadata ? hash(path, filePath) : null;
+        if (cached != null && cached.hash != null && Arrays.equals(cached.hash, hash)) {
+            hits.increment();
+            store(key, new Entry(size, modified, racy, keptHash(hash, racy), cached.dependencies));
+            return cached.dependencies;
+        }
+
+        misses.increment();
+        List<String> dependencies = List.copyOf(delegate.extractDependencies(filePath, rootPath));
+        store(key, new Entry(size, modified, racy, keptHash(hash, racy), dependencies));
+        return dependencies;
+    }
+
+    /**
+     * @return число попаданий с последнего {@link #flush()}
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return число промахов с последнего {@link #flush()}
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Сохраняет новые записи в директорию кэша и удаляет записи файлов,
+     * исчезнувших из корней текущего обхода. Счетчики попаданий и промахов
+     * сбрасываются, поэтому каждое слияние сообщает только свою статистику.
+     */
+    @Override
+    public void flush() throws IOException {
+        logger.info("Кэш зависимостей {}: попаданий {}, промахов {}",
+            cacheDirectory, hits.sumThenReset(), misses.sumThenReset());
+        Set<String> removedKeys = removedKeys(entries.keySet());
+        entries.keySet().removeAll(removedKeys);
+        updatedKeys.removeAll(removedKeys);
+        if (updatedKeys.isEmpty() && removedKeys.isEmpty()) {
+            visitedKeys.clear();
+            return;
+        }
+
+        Files.createDirectories(cacheDirectory);
+        synchronized (PROCESS_LOCKS.computeIfAbsent(cacheDirectory, k -> new Object())) {
+            try (FileChannel lockChannel = FileChannel.open(
+                    cacheDirectory.resolve(LOCK_FILE),
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE)) {
+                FileLock lock = lockChannel.lock();
+                try {
+                    Map<String, Entry> merged = readIndex();
+                    List<String> written = new ArrayList<>(updatedKeys);
+                    for (String key : written) {
+                        // запись могла быть удалена после неудачного сохранения, если файл исчез
+                        Entry entry = entries.get(key);
+                        if (entry != null) {
+                            merged.put(key, entry);
+                        }
+                    }
+                    Set<String> pruned = removedKeys(merged.keySet());
+                    merged.keySet().removeAll(pruned);
+                    writeIndex(merged);
+                    updatedKeys.removeAll(written);
+                    visitedKeys.clear();
+                    if (!pruned.isEmpty()) {
+                        logger.info("Из кэша зависимостей удалено записей об отсутствующих файлах: {}", pruned.size());
+                    }
+                } finally {
+                    lock.release();
+                }
+            }
+        }
+    }
+
+    /**
+     * Ключи под корнями текущего обхода, которые обход не запросил и файлов которых нет на диске.
+     * Существующие файлы не удаляются: другой запуск с общим кэшем мог обходить их часть дерева.
+     */
+    private Set<String> removedKeys(Set<String> keys) {
+        Set<String> removed = new HashSet<>();
+        for (String key : keys) {
+            if (!visitedKeys.contains(key) && isUnderVisitedRoot(key) && Files.notExists(Path.of(key))) {
+                removed.add(key);
+            }
+        }
+        return removed;
+    }
+
+    private boolean isUnderVisitedRoot(String key) {
+        for (String root : visitedRoots) {
+            if (key.startsWith(root) && key.length() > root.length()
+                    && key.startsWith(File.separator, root.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isRacy(long modified) {
+        return TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis()) - modified < RACY_WINDOW_NANOS;
+    }
+
+    private byte[] keptHash(byte[] hash, boolean racy) {
+        return hashContent || racy ? hash : null;
+    }
+
+    private void store(String key, Entry entry) {
+        entries.put(key, entry);
+        updatedKeys.add(key);
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (!loaded) {
+                readIndex().forEach(entries::putIfAbsent);
+                loaded = true;
+            }
+        }
+    }
+
+    private Map<String, Entry> readIndex() {
+        Map<String, Entry> index = new HashMap<>();
+        Path indexFile = cacheDirectory.resolve(INDEX_FILE);
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                logger.warn("Неизвестный формат кэша зависимостей, кэш будет перестроен: {}", indexFile);
+                return index;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String key = readString(in);
+                long size = in.readLong();
+                long modified = in.readLong();
+                boolean racy = in.readBoolean();
+                byte[] hash = null;
+                int hashLength = in.readUnsignedShort();
+                if (hashLength > 0) {
+                    hash = in.readNBytes(hashLength);
+                }
+                int dependencyCount = in.readInt();
+                List<String> dependencies = new ArrayList<>(dependencyCount);
+                for (int j = 0; j < dependencyCount; j++) {
+                    dependencies.add(readString(in));
+                }
+                index.put(key, new Entry(size, modified, racy, hash, List.copyOf(dependencies)));
+            }
+        } catch (NoSuchFileException e) {
+            return index;
+        } catch (IOException e) {
+            logger.warn("Не удалось прочитать кэш зависимостей, кэш будет перестроен: {}", indexFile, e);
+            index.clear();
+        }
+        return index;
+    }
+
+    private void writeIndex(Map<String, Entry> index) throws IOException {
+        Path temp = Files.createTempFile(cacheDirectory, INDEX_FILE, ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(index.size());
+                for (Map.Entry<String, Entry> record : index.entrySet()) {
+                    Entry entry = record.getValue();
+                    writeString(out, record.getKey());
+                    out.writeLong(entry.size);
+                    out.writeLong(entry.modified);
+                    out.writeBoolean(entry.racy);
+                    if (entry.hash == null) {
+                        out.writeShort(0);
+                    } else {
+                        out.writeShort(entry.hash.length);
+                        out.write(entry.hash);
+                    }
+                    out.writeInt(entry.dependencies.size());
+                    for (String dependency : entry.dependencies) {
+                        writeString(out, dependency);
+                    }
+                }
+            }
+            Files.move(temp, cacheDirectory.resolve(INDEX_FILE),
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return new String(in.readNBytes(in.readInt()), StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] hash(Path path, String filePath) {
+        DirectBufferPool bufferPool = DirectBufferPool.shared();
+        ByteBuffer buffer = bufferPool.acquire();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+            return digest.digest();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read file: " + filePath, e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        } finally {
+            bufferPool.release(buffer);
+        }
+    }
+
+    private static final class Entry {
+        private final long size;
+        private final long modified;
+        /** Запись сделана вскоре после изменения файла, отпечатку нельзя доверять без хэша */
+        private final boolean racy;
+        private final byte[] hash;
+        private final List<String> dependencies;
+
+        Entry(long size, long modified, boolean racy, byte[] hash, List<String> dependencies) {
+            this.size = size;
+            this.modified = modified;
+            this.racy = racy;
+            this.hash = hash;
+            this.dependencies = dependencies;
+        }
+    }
+}
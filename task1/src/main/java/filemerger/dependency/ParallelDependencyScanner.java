@@ -0,0 +1,151 @@
+package filemerger.dependency;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Параллельное извлечение зависимостей из списка файлов.
+ *
+ * - Файлы распределяются между воркерами ForkJoinPool (work-stealing), который
+ *   выравнивает нагрузку при файлах разного размера. Виртуальные потоки здесь не дают
+ *   выигрыша: работа — чтение локальных файлов и разбор, ограниченные CPU и диском,
+ *   а файловый ввод-вывод блокирует поток-носитель, поэтому число одновременно
+ *   читаемых файлов все равно определяется размером пула
+ * - Зависимости возвращаются в порядке исходного списка файлов,
+ *   поэтому результат совпадает с последовательным обходом
+ * - После каждого запуска доступно число файлов, обработанных каждым воркером
+ */
+public class ParallelDependencyScanner {
+    private static final Logger logger = LoggerFactory.getLogger(ParallelDependencyScanner.class);
+    private static final int BATCH_SIZE = 32;
+
+    private final DependencyExtractor extractor;
+    private final int parallelism;
+    private final ForkJoinPool sharedPool;
+    private volatile Map<String, Integer> lastWorkerFileCounts = Map.of();
+
+    /**
+     * Создает сканер с собственным пулом на каждый запуск
+     * @param extractor извлекатель зависимостей одного файла
+     * @param parallelism число воркеров
+     */
+    public ParallelDependencyScanner(DependencyExtractor extractor, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+        this.extractor = extractor;
+        this.parallelism = parallelism;
+        this.sharedPool = null;
+    }
+
+    /**
+     * Создает сканер поверх переданного пула. Пул не закрывается сканером.
+     * @param extractor извлекатель зависимостей одного файла
+     * @param pool пул воркеров
+     */
+    public ParallelDependencyScanner(DependencyExtractor extractor, ForkJoinPool pool) {
+        this.extractor = extractor;
+        this.parallelism = pool.getParallelism();
+        this.sharedPool = pool;
+    }
+
+    public DependencyExtractor getExtractor() {
+        return extractor;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Извлекает зависимости всех файлов
+     * @param files пути файлов относительно корневой директории
+     * @param rootPath корневая директория
+     * @return списки зависимостей, i-й элемент соответствует i-му файлу
+     */
+    public List<List<String>> scan(List<String> files, String rootPath) {
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        List<String>[] dependencies = new List[files.size()];
+        Map<String, Integer> workerFileCounts = new ConcurrentHashMap<>();
+
+        ForkJoinPool pool = sharedPool != null ? sharedPool : new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new ScanTask(files, rootPath, dependencies, workerFileCounts, 0, files.size()));
+        } finally {
+            if (pool != sharedPool) {
+                pool.shutdown();
+            }
+        }
+
+        lastWorkerFileCounts = Collections.unmodifiableMap(new TreeMap<>(workerFileCounts));
+        logger.info("Зависимости извлечены из {} файлов, распределение по воркерам: {}",
+            files.size(), lastWorkerFileCounts);
+
+        return Arrays.asList(dependencies);
+    }
+
+    /**
+     * @return число файлов, обработанных каждым воркером за последний запуск
+     */
+    public Map<String, Integer> getLastWorkerFileCounts() {
+        return lastWorkerFileCounts;
+    }
+
+    private class ScanTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        // задачи ForkJoin сериализуемы только формально и никогда не сериализуются
+        private final transient List<String> files;
+        private final String rootPath;
+        private final transient List<String>[] dependencies;
+        private final transient Map<String, Integer> workerFileCounts;
+        private final int from;
+        private final int to;
+
+        ScanTask(
+            List<String> files,
+            String rootPath,
+            List<String>[] dependencies,
+            Map<String, Integer> workerFileCounts,
+            int from,
+            int to
+        ) {
+            this.files = files;
+            this.rootPath = rootPath;
+            this.dependencies = dependencies;
+            this.workerFileCounts = workerFileCounts;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= BATCH_SIZE) {
+                for (int i = from; i < to; i++) {
+                    dependencies[i] = extractor.extractDependencies(
+                        Path.of(rootPath, files.get(i)).toString(),
+                        rootPath
+                    );
+                }
+                workerFileCounts.merge(Thread.currentThread().getName(), to - from, Integer::sum);
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(
+                new ScanTask(files, rootPath, dependencies, workerFileCounts, from, middle),
+                new ScanTask(files, rootPath, dependencies, workerFileCounts, middle, to)
+            );
+        }
+    }
+}
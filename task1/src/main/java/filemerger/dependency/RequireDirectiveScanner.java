@@ -0,0 +1,115 @@
+package filemerger.dependency;
+
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Инкрементальный поиск директив {@code require '<путь>'} в потоке символов.
+ *
+ * - Текст подается порциями произвольного размера, директива может
+ *   пересекать границу порций
+ * - Находит те же совпадения, что и {@link AbstractDependencyExtractor#REQUIRE_PATTERN},
+ *   кроме путей длиннее {@link #MAX_PATH_LENGTH} символов: такие директивы отбрасываются
+ * - Хранит только незавершенный путь текущей директивы, а не весь текст, и не больше
+ *   {@link #MAX_PATH_LENGTH} символов, даже если закрывающей кавычки нет до конца файла
+ */
+public class RequireDirectiveScanner {
+    /** Максимальная длина пути в директиве, как PATH_MAX в Linux */
+    public static final int MAX_PATH_LENGTH = 4096;
+
+    private static final char[] PREFIX = "require '".toCharArray();
+    private static final int[] FAILURE = buildFailureFunction(PREFIX);
+    private static final char QUOTE = '\'';
+
+    private final List<String> dependencies = new ArrayList<>();
+    private final StringBuilder path = new StringBuilder();
+    private int matched;
+    private boolean insidePath;
+    private boolean skippingPath;
+
+    /**
+     * Обрабатывает очередную порцию текста
+     * @param chars буфер с символами
+     * @param offset начало порции в буфере
+     * @param length длина порции
+     */
+    public void feed(char[] chars, int offset, int length) {
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            accept(chars[i]);
+        }
+    }
+
+    /**
+     * Обрабатывает оставшиеся символы буфера, в том числе direct-буфера без массива
+     * @param chars буфер с символами; позиция сдвигается до limit
+     */
+    public void feed(CharBuffer chars) {
+        if (chars.hasArray()) {
+            feed(chars.array(), chars.arrayOffset() + chars.position(), chars.remaining());
+            chars.position(chars.limit());
+            return;
+        }
+        while (chars.hasRemaining()) {
+            accept(chars.get());
+        }
+    }
+
+    private void accept(char c) {
+        if (insidePath) {
+            if (c == QUOTE) {
+                if (!skippingPath) {
+                    dependencies.add(path.toString());
+                }
+                path.setLength(0);
+                insidePath = false;
+                skippingPath = false;
+            } else if (!skippingPath) {
+                if (path.length() == MAX_PATH_LENGTH) {
+                    // слишком длинный путь пропускается до закрывающей кавычки, как его поглотил бы шаблон
+                    path.setLength(0);
+                    path.trimToSize();
+                    skippingPath = true;
+                } else {
+                    path.append(c);
+                }
+            }
+            return;
+        }
+
+        while (matched > 0 && c != PREFIX[matched]) {
+            matched = FAILURE[matched - 1];
+        }
+        if (c == PREFIX[matched]) {
+            matched++;
+        }
+        if (matched == PREFIX.length) {
+            matched = 0;
+            insidePath = true;
+        }
+    }
+
+    /**
+     * @return пути из полностью прочитанных директив в порядке их появления.
+     * Директива без закрывающей кавычки в конце текста не учитывается.
+     */
+    public List<String> getDependencies() {
+        return dependencies;
+    }
+
+    private static int[] buildFailureFunction(char[] pattern) {
+        int[] failure = new int[pattern.length];
+        int k = 0;
+        for (int i = 1; i < pattern.length; i++) {
+            while (k > 0 && pattern[i] != pattern[k]) {
+                k = failure[k - 1];
+            }
+            if (pattern[i] == pattern[k]) {
+                k++;
+            }
+            failure[i] = k;
+        }
+        return failure;
+    }
+}
@@ -0,0 +1,25 @@
+package filemerger.dependency;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Поиск кандидатов на директиву require в сырых байтах UTF-8.
+ * Маркер {@code require '} состоит из ASCII-символов, а байты ASCII в UTF-8
+ * не встречаются внутри многобайтовых последовательностей, поэтому поиск по байтам точен.
+ */
+interface RequireMarkerFinder {
+    byte[] MARKER = "require '".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * @param data байты текста
+     * @param from позиция, с которой начинается поиск
+     * @param to граница данных в массиве
+     * @return позиция первого маркера, целиком лежащего в [from, to), или -1
+     */
+    int indexOf(byte[] data, int from, int to);
+
+    static boolean matchesAt(byte[] data, int position) {
+        return Arrays.equals(data, position, position + MARKER.length, MARKER, 0, MARKER.length);
+    }
+}
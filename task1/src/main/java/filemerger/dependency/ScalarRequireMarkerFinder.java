@@ -0,0 +1,42 @@
+package filemerger.dependency;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Поиск маркера без Vector API: первый байт маркера ищется сразу в восьми байтах
+ * одного long (SWAR), найденные позиции проверяются целиком
+ */
+final class ScalarRequireMarkerFinder implements RequireMarkerFinder {
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    private static final long FIRST_BYTES = ONES * MARKER[0];
+
+    @Override
+    public int indexOf(byte[] data, int from, int to) {
+        int last = to - MARKER.length;
+        int i = from;
+        while (i + Long.BYTES - 1 <= last) {
+            long word = (long) LONGS.get(data, i) ^ FIRST_BYTES;
+            // старшие биты байтов, равных первому байту маркера; выше настоящего совпадения
+            // возможны ложные срабатывания, они отсекаются полной проверкой
+            long found = (word - ONES) & ~word & HIGH_BITS;
+            while (found != 0) {
+                int candidate = i + (Long.numberOfTrailingZeros(found) >>> 3);
+                if (RequireMarkerFinder.matchesAt(data, candidate)) {
+                    return candidate;
+                }
+                found &= found - 1;
+            }
+            i += Long.BYTES;
+        }
+        for (; i <= last; i++) {
+            if (data[i] == MARKER[0] && RequireMarkerFinder.matchesAt(data, i)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -1,35 +1,112 @@
 package filemerger.dependency;
 
+import filemerger.buffer.DirectBufferPool;
+
 import java.io.IOException;
-import java.nio.file.Files;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
-import java.util.ArrayList;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
-import java.util.regex.Matcher;
 
 /**
  * Потоковая реализация извлечения зависимостей.
  *
- * - Подходит для файлов любого размера
+ * - Читает файл порциями через буфер фиксированного размера,
+ *   поэтому подходит для файлов любого размера
+ * - Пиковое потребление памяти определяется размером буфера и длиной
+ *   пути в директиве, но не размером файла
+ * - Буфер байтов берется из {@link DirectBufferPool}, символы декодируются в heap-массив,
+ *   переиспользуемый в пределах потока вместе с декодером, поэтому на файл почти
+ *   не создается мусора, а сканер работает с массивом, а не с direct-буфером
+ * - Если буфер пула меньше {@value #MIN_BYTE_BUFFER_SIZE} байт, используется
+ *   отдельный heap-буфер
  * - Может быть медленнее на маленьких файлах из-за накладных расходов
  */
 public class StreamingDependencyExtractor extends AbstractDependencyExtractor {
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+    private static final int MIN_CHAR_BUFFER_SIZE = 2;
+    private static final int MIN_BYTE_BUFFER_SIZE = 16;
+    private static final ThreadLocal<CharsetDecoder> DECODER =
+        ThreadLocal.withInitial(StandardCharsets.UTF_8::newDecoder);
+
+    private final DirectBufferPool bufferPool;
+    private final int bufferSize;
+    private final ThreadLocal<CharBuffer> charBuffer;
+
+    public StreamingDependencyExtractor() {
+        this(DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param bufferSize размер буфера чтения в символах
+     */
+    public StreamingDependencyExtractor(int bufferSize) {
+        this(DirectBufferPool.shared(), bufferSize);
+    }
+
+    /**
+     * @param bufferPool пул, из которого берутся буферы байтов
+     * @param bufferSize размер буфера чтения в символах
+     */
+    public StreamingDependencyExtractor(DirectBufferPool bufferPool, int bufferSize) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("Buffer size must be positive: " + bufferSize);
+        }
+        this.bufferPool = bufferPool;
+        this.bufferSize = Math.max(bufferSize, MIN_CHAR_BUFFER_SIZE);
+        this.charBuffer = ThreadLocal.withInitial(() -> CharBuffer.allocate(this.bufferSize));
+    }
+
     @Override
     public List<String> extractDependencies(String filePath, String rootPath) {
-        List<String> dependencies = new ArrayList<>();
         Path path = Path.of(rootPath).resolve(filePath);
+        RequireDirectiveScanner scanner = new RequireDirectiveScanner();
+        CharsetDecoder decoder = DECODER.get().reset();
+        CharBuffer chars = charBuffer.get().clear();
+        boolean pooled = bufferPool.getBufferSize() >= MIN_BYTE_BUFFER_SIZE;
+        ByteBuffer bytes = pooled
+            ? bufferPool.acquire()
+            : ByteBuffer.allocate(Math.max(bufferSize, MIN_BYTE_BUFFER_SIZE));
 
-        try {
-            String content = Files.readString(path);
-            Matcher matcher = REQUIRE_PATTERN.matcher(content);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            boolean endOfInput = false;
 
-            while (matcher.find()) {
-                dependencies.add(matcher.group(1));
+            while (!endOfInput) {
+                endOfInput = channel.read(bytes) < 0;
+                bytes.flip();
+                CoderResult result;
+                do {
+                    result = decoder.decode(bytes, chars, endOfInput);
+                    if (result.isError()) {
+                        result.throwException();
+                    }
+                    drain(chars, scanner);
+                } while (result.isOverflow());
+                bytes.compact();
+            }
+            while (decoder.flush(chars).isOverflow()) {
+                drain(chars, scanner);
             }
+            drain(chars, scanner);
 
-            return dependencies;
+            return scanner.getDependencies();
         } catch (IOException e) {
             throw new RuntimeException("Failed to read file: " + filePath, e);
+        } finally {
+            if (pooled) {
+                bufferPool.release(bytes);
+            }
         }
     }
+
+    private static void drain(CharBuffer chars, RequireDirectiveScanner scanner) {
+        chars.flip();
+        scanner.feed(chars);
+        chars.clear();
+    }
 }
@@ -0,0 +1,177 @@
+package filemerger.dependency;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+
+/**
+ * Извлечение зависимостей поиском маркера {@code require '} в сырых байтах.
+ *
+ * - Файл читается блоками без декодирования; маркер ищется Vector API
+ *   ({@code VectorRequireMarkerFinder} из source set vector), а если модуль jdk.incubator.vector
+ *   не подключен — скалярным поиском по восемь байт ({@link ScalarRequireMarkerFinder})
+ * - Декодируется только найденная директива от маркера до закрывающей кавычки,
+ *   {@link #REQUIRE_PATTERN} лишь подтверждает совпадение и выделяет путь
+ * - Директива может пересекать границу блоков; если путь не помещается в буфер, буфер растет,
+ *   но не дальше, чем нужно для пути из {@link RequireDirectiveScanner#MAX_PATH_LENGTH} символов
+ * - Находит те же совпадения, что и {@link RequireDirectiveScanner}: пути длиннее
+ *   {@link RequireDirectiveScanner#MAX_PATH_LENGTH} символов отбрасываются
+ */
+public class VectorizedDependencyExtractor extends AbstractDependencyExtractor {
+    private static final Logger logger = LoggerFactory.getLogger(VectorizedDependencyExtractor.class);
+    /** Поиск по умолчанию: на Vector API, если модуль подключен, иначе скалярный */
+    static final RequireMarkerFinder DEFAULT_FINDER = detectFinder();
+    private static final byte QUOTE = '\'';
+    /** Символ UTF-16 занимает в UTF-8 не больше трех байт, поэтому путь длиннее точно превышает предел */
+    private static final int MAX_PATH_BYTES = RequireDirectiveScanner.MAX_PATH_LENGTH * 3;
+
+    public static final int DEFAULT_BUFFER_SIZE = 256 * 1024;
+
+    private final RequireMarkerFinder finder;
+    private final int bufferSize;
+
+    public VectorizedDependencyExtractor() {
+        this(DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param bufferSize начальный размер блока чтения в байтах
+     */
+    public VectorizedDependencyExtractor(int bufferSize) {
+        this(DEFAULT_FINDER, bufferSize);
+    }
+
+    VectorizedDependencyExtractor(RequireMarkerFinder finder, int bufferSize) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("Buffer size must be positive: " + bufferSize);
+        }
+        this.finder = finder;
+        this.bufferSize = Math.max(bufferSize, RequireMarkerFinder.MARKER.length);
+    }
+
+    /**
+     * @return true, если поиск выполняется на Vector API
+     */
+    public boolean isVectorized() {
+        return !(finder instanceof ScalarRequireMarkerFinder);
+    }
+
+    @Override
+    public List<String> extractDependencies(String filePath, String rootPath) {
+        Path fullPath = Path.of(rootPath).resolve(filePath);
+        try (FileChannel channel = FileChannel.open(fullPath, StandardOpenOption.READ)) {
+            byte[] buffer = new byte[(int) Math.min(bufferSize, Math.max(channel.size() + 1, RequireMarkerFinder.MARKER.length))];
+            List<String> dependencies = new ArrayList<>();
+            int length = 0;
+            int start = 0;
+            boolean endOfFile = false;
+            boolean skippingPath = false;
+
+            while (true) {
+                while (!endOfFile && length < buffer.length) {
+                    int read = channel.read(ByteBuffer.wrap(buffer, length, buffer.length - length));
+                    if (read < 0) {
+                        endOfFile = true;
+                    } else {
+                        length += read;
+                    }
+                }
+
+                int keepFrom;
+                if (skippingPath) {
+                    int quote = indexOfQuote(buffer, start, length);
+                    if (quote >= 0) {
+                        skippingPath = false;
+                        start = quote + 1;
+                        continue;
+                    }
+                    if (endOfFile) {
+                        break;
+                    }
+                    keepFrom = length;
+                } else {
+                    int candidate = finder.indexOf(buffer, start, length);
+                    if (candidate >= 0) {
+                        int pathStart = candidate + RequireMarkerFinder.MARKER.length;
+                        int quote = indexOfQuote(buffer, pathStart, length);
+                        if (quote >= 0) {
+                            if (quote - pathStart <= MAX_PATH_BYTES) {
+                                confirm(buffer, candidate, quote, dependencies);
+                            }
+                            start = quote + 1;
+                            continue;
+                        }
+                        // без закрывающей кавычки до конца файла совпадений больше нет
+                        if (endOfFile) {
+                            break;
+                        }
+                        if (length - pathStart > MAX_PATH_BYTES) {
+                            // путь уже длиннее предела: он отбрасывается, буфер дальше не растет
+                            skippingPath = true;
+                            keepFrom = length;
+                        } else {
+                            keepFrom = candidate;
+                        }
+                    } else {
+                        if (endOfFile) {
+                            break;
+                        }
+                        keepFrom = Math.max(start, length - (RequireMarkerFinder.MARKER.length - 1));
+                    }
+                }
+
+                if (keepFrom == 0 && length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                } else {
+                    System.arraycopy(buffer, keepFrom, buffer, 0, length - keepFrom);
+                    length -= keepFrom;
+                }
+                start = 0;
+            }
+            return dependencies;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read file: " + filePath, e);
+        }
+    }
+
+    private static void confirm(byte[] buffer, int start, int quote, List<String> dependencies) {
+        String directive = new String(buffer, start, quote + 1 - start, StandardCharsets.UTF_8);
+        Matcher matcher = REQUIRE_PATTERN.matcher(directive);
+        if (matcher.matches() && matcher.group(1).length() <= RequireDirectiveScanner.MAX_PATH_LENGTH) {
+            dependencies.add(matcher.group(1));
+        }
+    }
+
+    private static int indexOfQuote(byte[] buffer, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buffer[i] == QUOTE) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static RequireMarkerFinder detectFinder() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return (RequireMarkerFinder) Class.forName("filemerger.dependency.VectorRequireMarkerFinder")
+                    .getDeclaredConstructor()
+                    .newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                logger.warn("Не удалось инициализировать поиск директив на Vector API", e);
+            }
+        }
+        logger.info("Vector API недоступен (нужен --add-modules jdk.incubator.vector), используется скалярный поиск директив");
+        return new ScalarRequireMarkerFinder();
+    }
+}
@@ -1,7 +1,32 @@
 package filemerger.exceptions;
 
+import java.util.List;
+
 public class CyclicDependencyException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    // List.copyOf возвращает сериализуемые неизменяемые списки
+    @SuppressWarnings("serial")
+    private final List<List<String>> cycles;
+
     public CyclicDependencyException(String message) {
+        this(message, List.of());
+    }
+
+    /**
+     * @param message описание ошибки
+     * @param cycles по одному примеру цикла на каждую циклическую компоненту,
+     *               каждый путь начинается и заканчивается одним и тем же файлом
+     */
+    public CyclicDependencyException(String message, List<List<String>> cycles) {
         super(message);
+        this.cycles = cycles.stream().map(List::copyOf).toList();
+    }
+
+    /**
+     * @return найденные циклы, по одному на каждую циклическую компоненту
+     */
+    public List<List<String>> getCycles() {
+        return cycles;
     }
 }
@@ -0,0 +1,168 @@
+package filemerger.order;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Поиск всех циклов графа зависимостей алгоритмом Тарьяна.
+ *
+ * - Сильно связные компоненты находятся за O(V + E) без рекурсии
+ * - Циклической считается компонента из нескольких узлов или узел, зависящий сам от себя
+ * - Для каждой компоненты строится кратчайший цикл через ее наименьший узел
+ */
+final class CycleDetector {
+    private CycleDetector() {
+    }
+
+    /**
+     * @param graph граф зависимостей
+     * @param candidates узлы, среди которых ищутся циклы; остальные узлы и ребра к ним игнорируются
+     * @return по одному циклу на каждую циклическую компоненту в порядке наименьших узлов компонент,
+     *         путь идет от файла к его зависимости и заканчивается исходным файлом
+     */
+    static List<List<String>> findCycles(DependencyGraph graph, boolean[] candidates) {
+        int nodeCount = graph.nodeCount();
+        int[] index = new int[nodeCount];
+        int[] low = new int[nodeCount];
+        int[] component = new int[nodeCount];
+        Arrays.fill(index, -1);
+        Arrays.fill(component, -1);
+
+        int[] stack = new int[nodeCount];
+        boolean[] onStack = new boolean[nodeCount];
+        int stackSize = 0;
+        int[] callStack = new int[nodeCount];
+        int[] edgeCursor = new int[nodeCount];
+        int nextIndex = 0;
+        int componentCount = 0;
+        List<Integer> cyclicRoots = new ArrayList<>();
+
+        for (int root = 0; root < nodeCount; root++) {
+            if (!candidates[root] || index[root] >= 0) {
+                continue;
+            }
+
+            int depth = 0;
+            callStack[depth++] = root;
+            index[root] = low[root] = nextIndex++;
+            edgeCursor[root] = graph.dependentsStart(root);
+            stack[stackSize++] = root;
+            onStack[root] = true;
+
+            while (depth > 0) {
+                int node = callStack[depth - 1];
+                if (edgeCursor[node] < graph.dependentsEnd(node)) {
+                    int next = graph.dependentAt(edgeCursor[node]++);
+                    if (!candidates[next]) {
+                        continue;
+                    }
+                    if (index[next] < 0) {
+                        index[next] = low[next] = nextIndex++;
+                        edgeCursor[next] = graph.dependentsStart(next);
+                        stack[stackSize++] = next;
+                        onStack[next] = true;
+                        callStack[depth++] = next;
+                    } else if (onStack[next]) {
+                        low[node] = Math.min(low[node], index[next]);
+                    }
+                    continue;
+                }
+
+                depth--;
+                if (depth > 0) {
+                    int parent = callStack[depth - 1];
+                    low[parent] = Math.min(low[parent], low[node]);
+                }
+                if (low[node] != index[node]) {
+                    continue;
+                }
+
+                int size = 0;
+                int smallest = node;
+                int member;
+                do {
+                    member = stack[--stackSize];
+                    onStack[member] = false;
+                    component[member] = componentCount;
+                    smallest = Math.min(smallest, member);
+                    size++;
+                } while (member != node);
+                if (size > 1 || hasSelfLoop(graph, node)) {
+                    cyclicRoots.add(smallest);
+                }
+                componentCount++;
+            }
+        }
+
+        Collections.sort(cyclicRoots);
+        List<List<String>> cycles = new ArrayList<>(cyclicRoots.size());
+        int[] previous = new int[nodeCount];
+        Arrays.fill(previous, -1);
+        int[] queue = new int[nodeCount];
+        for (int start : cyclicRoots) {
+            cycles.add(shortestCycle(graph, start, component, previous, queue));
+        }
+        return cycles;
+    }
+
+    private static boolean hasSelfLoop(DependencyGraph graph, int node) {
+        for (int e = graph.dependentsStart(node); e < graph.dependentsEnd(node); e++) {
+            if (graph.dependentAt(e) == node) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Поиск в ширину внутри компоненты от start по ребрам "зависимость -> зависимый"
+     * до первого узла, от которого зависит start. Путь разворачивается,
+     * чтобы он шел от файла к его зависимости.
+     */
+    private static List<String> shortestCycle(
+        DependencyGraph graph,
+        int start,
+        int[] component,
+        int[] previous,
+        int[] queue
+    ) {
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = start;
+        previous[start] = start;
+        List<Integer> visited = new ArrayList<>();
+        visited.add(start);
+        int last = -1;
+
+        search:
+        while (head < tail) {
+            int node = queue[head++];
+            for (int e = graph.dependentsStart(node); e < graph.dependentsEnd(node); e++) {
+                int next = graph.dependentAt(e);
+                if (next == start) {
+                    last = node;
+                    break search;
+                }
+                if (component[next] == component[start] && previous[next] < 0) {
+                    previous[next] = node;
+                    visited.add(next);
+                    queue[tail++] = next;
+                }
+            }
+        }
+
+        List<String> cycle = new ArrayList<>();
+        cycle.add(graph.name(start));
+        for (int node = last; node != start; node = previous[node]) {
+            cycle.add(graph.name(node));
+        }
+        cycle.add(graph.name(start));
+
+        for (int node : visited) {
+            previous[node] = -1;
+        }
+        return cycle;
+    }
+}
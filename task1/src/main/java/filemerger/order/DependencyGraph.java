@@ -0,0 +1,198 @@
+package filemerger.order;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Компактный граф зависимостей в формате CSR (compressed sparse row).
+ *
+ * - Каждый путь хранится один раз, узлы адресуются int-идентификаторами
+ * - Идентификаторы назначаются в лексикографическом порядке путей,
+ *   поэтому сравнение идентификаторов равносильно сравнению путей
+ * - Для каждого узла хранится непрерывный диапазон зависящих от него узлов,
+ *   повторяющиеся ребра отбрасываются
+ */
+public final class DependencyGraph {
+    private final String[] names;
+    private final int[] offsets;
+    private final int[] dependents;
+    private final int[] inDegree;
+
+    private DependencyGraph(String[] names, int[] offsets, int[] dependents, int[] inDegree) {
+        this.names = names;
+        this.offsets = offsets;
+        this.dependents = dependents;
+        this.inDegree = inDegree;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Строит граф из пар [from, to], где from зависит от to
+     */
+    public static DependencyGraph of(String[][] dependencies) {
+        Builder builder = builder();
+        for (String[] dependency : dependencies) {
+            builder.addDependency(dependency[0], dependency[1]);
+        }
+        return builder.build();
+    }
+
+    public int nodeCount() {
+        return names.length;
+    }
+
+    public int edgeCount() {
+        return dependents.length;
+    }
+
+    /**
+     * @return путь узла с указанным идентификатором
+     */
+    public String name(int node) {
+        return names[node];
+    }
+
+    /**
+     * @return идентификатор узла с указанным путем или -1, если такого узла нет
+     */
+    public int indexOf(String name) {
+        int index = Arrays.binarySearch(names, name);
+        return index >= 0 ? index : -1;
+    }
+
+    /**
+     * @return число различных зависимостей узла
+     */
+    public int inDegree(int node) {
+        return inDegree[node];
+    }
+
+    int dependentsStart(int node) {
+        return offsets[node];
+    }
+
+    int dependentsEnd(int node) {
+        return offsets[node + 1];
+    }
+
+    int dependentAt(int index) {
+        return dependents[index];
+    }
+
+    /**
+     * Разворачивает граф обратно в пары [from, to]
+     */
+    public String[][] toPairs() {
+        String[][] pairs = new String[dependents.length][];
+        for (int node = 0; node < names.length; node++) {
+            for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+                pairs[i] = new String[]{names[dependents[i]], names[node]};
+            }
+        }
+        return pairs;
+    }
+
+    /**
+     * Накопитель ребер. Пути интернируются при добавлении,
+     * ребра хранятся в примитивных массивах.
+     */
+    public static final class Builder {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> names = new ArrayList<>();
+        private int[] edgeDependencies = new int[16];
+        private int[] edgeDependents = new int[16];
+        private int edgeCount;
+
+        private Builder() {
+        }
+
+        /**
+         * Добавляет ребро: dependent зависит от dependency
+         */
+        public Builder addDependency(String dependent, String dependency) {
+            if (edgeCount == edgeDependents.length) {
+                int capacity = edgeCount * 2;
+                edgeDependents = Arrays.copyOf(edgeDependents, capacity);
+                edgeDependencies = Arrays.copyOf(edgeDependencies, capacity);
+            }
+            edgeDependents[edgeCount] = intern(dependent);
+            edgeDependencies[edgeCount] = intern(dependency);
+            edgeCount++;
+            return this;
+        }
+
+        /**
+         * Добавляет узел без ребер. Узлы, упомянутые в ребрах, добавляются автоматически.
+         */
+        public Builder addNode(String name) {
+            intern(name);
+            return this;
+        }
+
+        /**
+         * @return true, если узел уже добавлен ребром или {@link #addNode}
+         */
+        public boolean contains(String name) {
+            return ids.containsKey(name);
+        }
+
+        private int intern(String name) {
+            Integer id = ids.get(name);
+            if (id == null) {
+                id = names.size();
+                ids.put(name, id);
+                names.add(name);
+            }
+            return id;
+        }
+
+        public DependencyGraph build() {
+            int nodeCount = names.size();
+            String[] sortedNames = names.toArray(new String[0]);
+            Arrays.sort(sortedNames);
+
+            int[] rank = new int[nodeCount];
+            for (int i = 0; i < nodeCount; i++) {
+                rank[ids.get(sortedNames[i])] = i;
+            }
+
+            int[] offsets = new int[nodeCount + 1];
+            for (int i = 0; i < edgeCount; i++) {
+                offsets[rank[edgeDependencies[i]] + 1]++;
+            }
+            for (int node = 0; node < nodeCount; node++) {
+                offsets[node + 1] += offsets[node];
+            }
+
+            int[] dependents = new int[edgeCount];
+            int[] cursor = Arrays.copyOf(offsets, nodeCount);
+            for (int i = 0; i < edgeCount; i++) {
+                dependents[cursor[rank[edgeDependencies[i]]]++] = rank[edgeDependents[i]];
+            }
+
+            int[] inDegree = new int[nodeCount];
+            int size = 0;
+            for (int node = 0; node < nodeCount; node++) {
+                int start = offsets[node];
+                int end = offsets[node + 1];
+                offsets[node] = size;
+                Arrays.sort(dependents, start, end);
+                for (int i = start; i < end; i++) {
+                    if (i == start || dependents[i] != dependents[i - 1]) {
+                        dependents[size++] = dependents[i];
+                        inDegree[dependents[i]]++;
+                    }
+                }
+            }
+            offsets[nodeCount] = size;
+
+            return new DependencyGraph(sortedNames, offsets, Arrays.copyOf(dependents, size), inDegree);
+        }
+    }
+}
@@ -0,0 +1,383 @@
+package filemerger.order;
+
+import filemerger.order.ExternalSorter.PairReader;
+import filemerger.order.ExternalSorter.RunReader;
+import filemerger.order.ExternalSorter.RunWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Топологическая сортировка во внешней памяти для графов, не помещающихся в heap.
+ *
+ * - Ребра сбрасываются на диск отсортированными отрезками ({@link ExternalSorter}),
+ *   в памяти одновременно находится не больше бюджета пар
+ * - Входящие степени считаются внешней сортировкой ребер по зависимому файлу
+ * - Порядок строится волнами алгоритма Кана: каждый проход сливает текущую волну
+ *   с ребрами, отсортированными по зависимости, и уменьшает степени зависимых
+ *   файлов; обработанные ребра и узлы из следующих проходов исключаются
+ * - Волны читаются из отсортированных файлов, поэтому внутри волны файлы идут
+ *   в лексикографическом порядке и результат совпадает с {@link TopologicalOrderResolver}
+ * - Число проходов равно длине критического пути (глубине графа), каждый проход
+ *   читает оставшиеся ребра целиком, поэтому объем ввода-вывода — O(глубина × E).
+ *   На широких неглубоких деревьях это несколько проходов, но на длинной цепочке
+ *   зависимостей из D файлов — D проходов по диску: скорость меняется на ограниченный
+ *   объем памяти, и для глубоких графов, помещающихся в heap, лучше {@link TopologicalOrderResolver}
+ * - Размеры файлов, переданные в {@link Session#addFileSize}, сливаются с узлами графа
+ *   за один проход, поэтому объем упорядоченных файлов известен без повторных обращений к диску
+ * - При цикле в память загружаются только ребра, оставшиеся после последнего прохода
+ */
+public class ExternalOrderResolver implements OrderResolver {
+    private static final Logger logger = LoggerFactory.getLogger(ExternalOrderResolver.class);
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+    public static final long DEFAULT_MEMORY_BUDGET = 64L * 1024 * 1024;
+
+    private final long memoryBudget;
+    private final Path workDirectory;
+
+    public ExternalOrderResolver() {
+        this(DEFAULT_MEMORY_BUDGET, Path.of(System.getProperty("java.io.tmpdir")));
+    }
+
+    /**
+     * @param memoryBudget оценочный объем памяти для накопления ребер перед сбросом на диск
+     * @param workDirectory директория для временных файлов
+     */
+    public ExternalOrderResolver(long memoryBudget, Path workDirectory) {
+        if (memoryBudget < 1) {
+            throw new IllegalArgumentException("Memory budget must be positive: " + memoryBudget);
+        }
+        this.memoryBudget = memoryBudget;
+        this.workDirectory = workDirectory;
+    }
+
+    @Override
+    public List<String> resolve(String[][] dependencies) {
+        try (Session session = newSession()) {
+            for (String[] dependency : dependencies) {
+                session.addDependency(dependency[0], dependency[1]);
+            }
+            session.resolve();
+            List<String> order = new ArrayList<>();
+            session.forEachBatch(1024, order::addAll);
+            return order;
+        }
+    }
+
+    /**
+     * Создает сеанс сортировки. Сеанс владеет временными файлами и удаляет их при закрытии.
+     */
+    public Session newSession() {
+        try {
+            Files.createDirectories(workDirectory);
+            return new Session(Files.createTempDirectory(workDirectory, "order"));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create work directory in: " + workDirectory, e);
+        }
+    }
+
+    /**
+     * Сеанс внешней сортировки: ребра добавляются по одному, затем
+     * {@link #resolve()} строит порядок на диске, а {@link #forEachBatch} читает его частями
+     */
+    public final class Session implements Closeable {
+        private final Path directory;
+        private final ExternalSorter byDependency;
+        private final ExternalSorter byDependent;
+        private final ExternalSorter fileSizes;
+        private Path order;
+        private long nodeCount;
+        private long nodeBytes;
+        private long edgeCount;
+        private int waveCount;
+        private int fileCounter;
+
+        private Session(Path directory) {
+            this.directory = directory;
+            this.byDependency = new ExternalSorter(directory, memoryBudget / 3, true);
+            this.byDependent = new ExternalSorter(directory, memoryBudget / 3, true);
+            this.fileSizes = new ExternalSorter(directory, memoryBudget / 3, true);
+        }
+
+        /**
+         * Добавляет ребро: dependent зависит от dependency
+         */
+        public synchronized void addDependency(String dependent, String dependency) {
+            try {
+                byDependency.add(dependency, dependent);
+                byDependent.add(dependent, dependency);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to spill dependencies to: " + directory, e);
+            }
+        }
+
+        /**
+         * Запоминает размер файла для {@link #nodeBytes()}
+         */
+        public synchronized void addFileSize(String file, long size) {
+            try {
+                fileSizes.add(file, Long.toString(size));
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to spill file sizes to: " + directory, e);
+            }
+        }
+
+        /**
+         * Строит топологический порядок
+         * @throws filemerger.exceptions.CyclicDependencyException если найден цикл
+         */
+        public void resolve() {
+            try {
+                computeOrder();
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to resolve order in: " + directory, e);
+            }
+            logger.info("Внешняя сортировка: узлов {}, ребер {}, волн {}, отрезков на диске {}",
+                nodeCount, edgeCount, waveCount, byDependency.getSpillCount() + byDependent.getSpillCount());
+        }
+
+        /**
+         * Передает файлы в топологическом порядке частями не больше batchSize
+         */
+        public void forEachBatch(int batchSize, Consumer<List<String>> consumer) {
+            if (order == null) {
+                throw new IllegalStateException("Order is not resolved");
+            }
+            try (RunReader reader = new RunReader(order, STREAM_BUFFER_SIZE)) {
+                List<String> batch = new ArrayList<>(batchSize);
+                while (reader.next()) {
+                    batch.add(reader.first());
+                    if (batch.size() == batchSize) {
+                        consumer.accept(batch);
+                        batch = new ArrayList<>(batchSize);
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    consumer.accept(batch);
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to read order from: " + directory, e);
+            }
+        }
+
+        public long nodeCount() {
+            return nodeCount;
+        }
+
+        public long edgeCount() {
+            return edgeCount;
+        }
+
+        public int waveCount() {
+            return waveCount;
+        }
+
+        /**
+         * @return суммарный размер файлов из порядка по данным {@link #addFileSize};
+         * файлы без размера не учитываются
+         */
+        public long nodeBytes() {
+            return nodeBytes;
+        }
+
+        @Override
+        public void close() {
+            try {
+                byDependency.close();
+                byDependent.close();
+                fileSizes.close();
+                try (Stream<Path> files = Files.list(directory)) {
+                    for (Path file : (Iterable<Path>) files::iterator) {
+                        Files.deleteIfExists(file);
+                    }
+                }
+                Files.deleteIfExists(directory);
+            } catch (IOException e) {
+                logger.warn("Не удалось удалить временные файлы сортировки: {}", directory, e);
+            }
+        }
+
+        private void computeOrder() throws IOException {
+            Path edges = newFile();
+            try (PairReader in = byDependency.sorted(); RunWriter out = writer(edges)) {
+                while (in.next()) {
+                    out.write(in.first(), in.second());
+                    edgeCount++;
+                }
+            }
+
+            Path degrees = newFile();
+            try (PairReader in = byDependent.sorted(); RunWriter out = writer(degrees)) {
+                String node = null;
+                int count = 0;
+                while (in.next()) {
+                    if (!in.first().equals(node)) {
+                        if (node != null) {
+                            out.write(node, Integer.toString(count));
+                        }
+                        node = in.first();
+                        count = 0;
+                    }
+                    count++;
+                }
+                if (node != null) {
+                    out.write(node, Integer.toString(count));
+                }
+            }
+
+            Path frontier = newFile();
+            long frontierSize = 0;
+            try (RunReader dependencies = reader(edges);
+                 RunReader dependents = reader(degrees);
+                 PairReader sizes = fileSizes.sorted();
+                 RunWriter out = writer(frontier)) {
+                NodeSizes nodeSizes = new NodeSizes(sizes);
+                boolean hasDependent = dependents.next();
+                String previous = null;
+                while (dependencies.next()) {
+                    String node = dependencies.first();
+                    if (node.equals(previous)) {
+                        continue;
+                    }
+                    previous = node;
+                    while (hasDependent && dependents.first().compareTo(node) < 0) {
+                        countNode(dependents.first(), nodeSizes);
+                        hasDependent = dependents.next();
+                    }
+                    if (hasDependent && dependents.first().equals(node)) {
+                        continue;
+                    }
+                    countNode(node, nodeSizes);
+                    out.write(node, "");
+                    frontierSize++;
+                }
+                while (hasDependent) {
+                    countNode(dependents.first(), nodeSizes);
+                    hasDependent = dependents.next();
+                }
+            }
+
+            order = newFile();
+            long remaining = nodeCount - frontierSize;
+            try (RunWriter orderOut = writer(order)) {
+                while (frontierSize > 0) {
+                    waveCount++;
+                    ExternalSorter decrements = new ExternalSorter(directory, memoryBudget, false);
+                    Path nextEdges = newFile();
+                    try (RunReader wave = reader(frontier);
+                         RunReader in = reader(edges);
+                         RunWriter rest = writer(nextEdges)) {
+                        boolean hasWave = wave.next();
+                        while (in.next()) {
+                            while (hasWave && wave.first().compareTo(in.first()) < 0) {
+                                orderOut.write(wave.first(), "");
+                                hasWave = wave.next();
+                            }
+                            if (hasWave && wave.first().equals(in.first())) {
+                                decrements.add(in.second(), "");
+                            } else {
+                                rest.write(in.first(), in.second());
+                            }
+                        }
+                        while (hasWave) {
+                            orderOut.write(wave.first(), "");
+                            hasWave = wave.next();
+                        }
+                    }
+
+                    Path nextDegrees = newFile();
+                    Path nextFrontier = newFile();
+                    frontierSize = 0;
+                    try (PairReader decrement = decrements.sorted();
+                         RunReader in = reader(degrees);
+                         RunWriter degreesOut = writer(nextDegrees);
+                         RunWriter frontierOut = writer(nextFrontier)) {
+                        boolean hasDecrement = decrement.next();
+                        while (in.next()) {
+                            int count = Integer.parseInt(in.second());
+                            while (hasDecrement && decrement.first().equals(in.first())) {
+                                count--;
+                                hasDecrement = decrement.next();
+                            }
+                            if (count == 0) {
+                                frontierOut.write(in.first(), "");
+                                frontierSize++;
+                            } else {
+                                degreesOut.write(in.first(), Integer.toString(count));
+                            }
+                        }
+                    } finally {
+                        decrements.close();
+                    }
+                    remaining -= frontierSize;
+
+                    replace(edges, nextEdges);
+                    replace(degrees, nextDegrees);
+                    replace(frontier, nextFrontier);
+                }
+            }
+
+            if (remaining > 0) {
+                DependencyGraph.Builder residual = DependencyGraph.builder();
+                try (RunReader in = reader(edges)) {
+                    while (in.next()) {
+                        residual.addDependency(in.second(), in.first());
+                    }
+                }
+                new TopologicalOrderResolver().resolve(residual.build());
+                throw new IllegalStateException("Unresolved files without a cycle: " + remaining);
+            }
+        }
+
+        /**
+         * Узлы приходят в возрастающем порядке, поэтому размеры читаются одним проходом
+         */
+        private void countNode(String node, NodeSizes sizes) throws IOException {
+            nodeCount++;
+            nodeBytes += sizes.sizeOf(node);
+        }
+
+        private Path newFile() {
+            return directory.resolve("pass-" + fileCounter++ + ".bin");
+        }
+    }
+
+    private static final class NodeSizes {
+        private final PairReader sizes;
+        private boolean hasSize;
+
+        NodeSizes(PairReader sizes) throws IOException {
+            this.sizes = sizes;
+            this.hasSize = sizes.next();
+        }
+
+        long sizeOf(String node) throws IOException {
+            while (hasSize && sizes.first().compareTo(node) < 0) {
+                hasSize = sizes.next();
+            }
+            return hasSize && sizes.first().equals(node) ? Long.parseLong(sizes.second()) : 0;
+        }
+    }
+
+    private static void replace(Path target, Path source) throws IOException {
+        Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static RunWriter writer(Path path) throws IOException {
+        return new RunWriter(path, STREAM_BUFFER_SIZE);
+    }
+
+    private static RunReader reader(Path path) throws IOException {
+        return new RunReader(path, STREAM_BUFFER_SIZE);
+    }
+}
@@ -0,0 +1,363 @@
+package filemerger.order;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Внешняя сортировка пар строк с ограниченным объемом памяти.
+ *
+ * - Пары накапливаются в памяти, пока их оценочный размер не превысит бюджет,
+ *   затем сортируются и сбрасываются на диск отдельным отрезком
+ * - Отрезки сливаются k-путевым слиянием, при большом числе отрезков — в несколько проходов
+ * - Пары упорядочены по первой, затем по второй строке в порядке {@link String#compareTo}
+ */
+final class ExternalSorter implements Closeable {
+    private static final int FAN_IN = 64;
+    private static final Comparator<String[]> ORDER =
+        Comparator.<String[], String>comparing(pair -> pair[0]).thenComparing(pair -> pair[1]);
+
+    private final Path directory;
+    private final long memoryBudget;
+    private final boolean distinct;
+    private final List<String[]> buffer = new ArrayList<>();
+    private final List<Path> runs = new ArrayList<>();
+    private long bufferedBytes;
+    private int spillCount;
+
+    /**
+     * @param directory директория для отрезков
+     * @param memoryBudget оценочный объем памяти для накопления пар
+     * @param distinct отбрасывать повторяющиеся пары
+     */
+    ExternalSorter(Path directory, long memoryBudget, boolean distinct) {
+        this.directory = directory;
+        this.memoryBudget = memoryBudget;
+        this.distinct = distinct;
+    }
+
+    void add(String first, String second) throws IOException {
+        buffer.add(new String[]{first, second});
+        bufferedBytes += estimateSize(first) + estimateSize(second) + 48;
+        if (bufferedBytes >= memoryBudget) {
+            spill();
+        }
+    }
+
+    /**
+     * @return число отрезков, сброшенных на диск
+     */
+    int getSpillCount() {
+        return spillCount;
+    }
+
+    /**
+     * Завершает накопление и возвращает пары в отсортированном порядке
+     */
+    PairReader sorted() throws IOException {
+        if (runs.isEmpty()) {
+            buffer.sort(ORDER);
+            List<String[]> pairs = new ArrayList<>(buffer);
+            buffer.clear();
+            bufferedBytes = 0;
+            return distinct(new MemoryReader(pairs));
+        }
+        if (!buffer.isEmpty()) {
+            spill();
+        }
+        while (runs.size() > FAN_IN) {
+            List<Path> group = new ArrayList<>(runs.subList(0, FAN_IN));
+            runs.subList(0, FAN_IN).clear();
+            Path merged = newRun();
+            try (PairReader reader = merge(group); RunWriter writer = new RunWriter(merged, bufferSize())) {
+                while (reader.next()) {
+                    writer.write(reader.first(), reader.second());
+                }
+            }
+            for (Path run : group) {
+                Files.deleteIfExists(run);
+            }
+            runs.add(merged);
+        }
+        return distinct(merge(runs));
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.clear();
+        for (Path run : runs) {
+            Files.deleteIfExists(run);
+        }
+        runs.clear();
+    }
+
+    private void spill() throws IOException {
+        buffer.sort(ORDER);
+        Path run = newRun();
+        try (RunWriter writer = new RunWriter(run, bufferSize())) {
+            String[] previous = null;
+            for (String[] pair : buffer) {
+                if (!distinct || previous == null || ORDER.compare(previous, pair) != 0) {
+                    writer.write(pair[0], pair[1]);
+                }
+                previous = pair;
+            }
+        }
+        runs.add(run);
+        spillCount++;
+        buffer.clear();
+        bufferedBytes = 0;
+    }
+
+    private PairReader merge(List<Path> paths) throws IOException {
+        List<RunReader> readers = new ArrayList<>(paths.size());
+        try {
+            for (Path path : paths) {
+                readers.add(new RunReader(path, bufferSize()));
+            }
+        } catch (IOException e) {
+            for (RunReader reader : readers) {
+                reader.close();
+            }
+            throw e;
+        }
+        return new MergingReader(readers);
+    }
+
+    private PairReader distinct(PairReader reader) {
+        return distinct ? new DistinctReader(reader) : reader;
+    }
+
+    private Path newRun() throws IOException {
+        return Files.createTempFile(directory, "run", ".bin");
+    }
+
+    private int bufferSize() {
+        return (int) Math.max(4096, Math.min(64 * 1024, memoryBudget / (FAN_IN + 1)));
+    }
+
+    private static long estimateSize(String value) {
+        return 40L + 2L * value.length();
+    }
+
+    /**
+     * Последовательное чтение отсортированных пар
+     */
+    interface PairReader extends Closeable {
+        /**
+         * Переходит к следующей паре
+         * @return false, если пары закончились
+         */
+        boolean next() throws IOException;
+
+        String first();
+
+        String second();
+    }
+
+    /**
+     * Строка с длиной в int: writeUTF ограничен 65535 байтами, а путь из директивы require может быть длиннее
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return new String(in.readNBytes(in.readInt()), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Запись пар в файл отрезка. Перед каждой парой пишется байт 1, в конце — байт 0.
+     * Строки записываются как длина в байтах (int) и UTF-8.
+     */
+    static final class RunWriter implements Closeable {
+        private final DataOutputStream out;
+
+        RunWriter(Path path, int bufferSize) throws IOException {
+            this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), bufferSize));
+        }
+
+        void write(String first, String second) throws IOException {
+            out.writeByte(1);
+            writeString(out, first);
+            writeString(out, second);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                out.writeByte(0);
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+    /**
+     * Чтение пар из файла отрезка, записанного {@link RunWriter}
+     */
+    static final class RunReader implements PairReader {
+        private final DataInputStream in;
+        private String first;
+        private String second;
+
+        RunReader(Path path, int bufferSize) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), bufferSize));
+        }
+
+        @Override
+        public boolean next() throws IOException {
+            if (in.readByte() == 0) {
+                return false;
+            }
+            first = readString(in);
+            second = readString(in);
+            return true;
+        }
+
+        @Override
+        public String first() {
+            return first;
+        }
+
+        @Override
+        public String second() {
+            return second;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    private static final class MemoryReader implements PairReader {
+        private final List<String[]> pairs;
+        private int position = -1;
+
+        MemoryReader(List<String[]> pairs) {
+            this.pairs = pairs;
+        }
+
+        @Override
+        public boolean next() {
+            return ++position < pairs.size();
+        }
+
+        @Override
+        public String first() {
+            return pairs.get(position)[0];
+        }
+
+        @Override
+        public String second() {
+            return pairs.get(position)[1];
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static final class MergingReader implements PairReader {
+        private final List<RunReader> readers;
+        private final PriorityQueue<RunReader> queue = new PriorityQueue<>(
+            Comparator.<RunReader, String>comparing(RunReader::first).thenComparing(RunReader::second));
+        private RunReader current;
+        private boolean started;
+
+        MergingReader(List<RunReader> readers) {
+            this.readers = readers;
+        }
+
+        @Override
+        public boolean next() throws IOException {
+            if (!started) {
+                started = true;
+                for (RunReader reader : readers) {
+                    if (reader.next()) {
+                        queue.add(reader);
+                    }
+                }
+            } else if (current != null && current.next()) {
+                queue.add(current);
+            }
+            current = queue.poll();
+            return current != null;
+        }
+
+        @Override
+        public String first() {
+            return current.first();
+        }
+
+        @Override
+        public String second() {
+            return current.second();
+        }
+
+        @Override
+        public void close() throws IOException {
+            IOException failure = null;
+            for (RunReader reader : readers) {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    failure = e;
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    private static final class DistinctReader implements PairReader {
+        private final PairReader reader;
+        private String first;
+        private String second;
+
+        DistinctReader(PairReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public boolean next() throws IOException {
+            while (reader.next()) {
+                if (!reader.first().equals(first) || !reader.second().equals(second)) {
+                    first = reader.first();
+                    second = reader.second();
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public String first() {
+            return first;
+        }
+
+        @Override
+        public String second() {
+            return second;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+}
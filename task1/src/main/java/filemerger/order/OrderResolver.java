@@ -1,5 +1,7 @@
 package filemerger.order;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import filemerger.exceptions.CyclicDependencyException;
 
@@ -11,4 +13,66 @@ public interface OrderResolver {
      * @throws CyclicDependencyException если найден цикл
      */
     List<String> resolve(String[][] dependencies);
+
+    /**
+     * Определяет порядок элементов компактного графа зависимостей.
+     * Реализация по умолчанию разворачивает граф в массив пар.
+     * @param graph граф зависимостей
+     * @return упорядоченный список элементов
+     * @throws CyclicDependencyException если найден цикл
+     */
+    default List<String> resolve(DependencyGraph graph) {
+        return resolve(graph.toPairs());
+    }
+
+    /**
+     * Разбивает элементы на уровни: все зависимости элемента лежат в предыдущих
+     * уровнях, поэтому элементы одного уровня можно обрабатывать параллельно.
+     * Внутри уровня элементы идут в лексикографическом порядке, число уровней
+     * равно длине критического пути.
+     * Реализация по умолчанию вычисляет уровни по порядку из {@link #resolve(DependencyGraph)}.
+     * @param graph граф зависимостей
+     * @return уровни в порядке обработки
+     * @throws CyclicDependencyException если найден цикл
+     * @throws IllegalStateException если порядок содержит элемент, которого нет в графе
+     */
+    default List<List<String>> resolveLevels(DependencyGraph graph) {
+        List<String> order = resolve(graph);
+        int[] level = new int[graph.nodeCount()];
+        int[] nodes = new int[order.size()];
+        int levelCount = 0;
+
+        for (int i = 0; i < order.size(); i++) {
+            int node = graph.indexOf(order.get(i));
+            if (node < 0) {
+                throw new IllegalStateException("Resolved order contains a file missing from the graph: " + order.get(i));
+            }
+            nodes[i] = node;
+            levelCount = Math.max(levelCount, level[node] + 1);
+            for (int e = graph.dependentsStart(node); e < graph.dependentsEnd(node); e++) {
+                int dependent = graph.dependentAt(e);
+                level[dependent] = Math.max(level[dependent], level[node] + 1);
+            }
+        }
+
+        Arrays.sort(nodes);
+        List<List<String>> levels = new ArrayList<>(levelCount);
+        for (int i = 0; i < levelCount; i++) {
+            levels.add(new ArrayList<>());
+        }
+        for (int node : nodes) {
+            levels.get(level[node]).add(graph.name(node));
+        }
+        return levels;
+    }
+
+    /**
+     * Разбивает элементы на уровни, см. {@link #resolveLevels(DependencyGraph)}
+     * @param dependencies массив пар [from, to], где from должен идти после to
+     * @return уровни в порядке обработки
+     * @throws CyclicDependencyException если найден цикл
+     */
+    default List<List<String>> resolveLevels(String[][] dependencies) {
+        return resolveLevels(DependencyGraph.of(dependencies));
+    }
 }
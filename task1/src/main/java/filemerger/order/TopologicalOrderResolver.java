@@ -2,112 +2,119 @@ package filemerger.order;
 
 import filemerger.exceptions.CyclicDependencyException;
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /**
  * Реализация сортировки зависимостей с помощью топологической сортировки.
- * Использует алгоритм Кана с дополнительной проверкой на циклы.
+ * Использует алгоритм Кана; при наличии циклов сообщает обо всех
+ * циклических компонентах сразу (см. {@link CycleDetector}).
  */
 public class TopologicalOrderResolver implements OrderResolver {
-    private static class DependencyGraph {
-        private final Map<String, Set<String>> edges = new HashMap<>();
-        private final Map<String, Integer> inDegree = new HashMap<>();
-        private final Set<String> allNodes = new HashSet<>();
-
-        void addDependency(String dependent, String dependency) {
-            edges.computeIfAbsent(dependency, k -> new HashSet<>()).add(dependent);
-            edges.putIfAbsent(dependent, new HashSet<>());
-            inDegree.merge(dependent, 1, Integer::sum);
-            inDegree.putIfAbsent(dependency, 0);
-            allNodes.addAll(List.of(dependent, dependency));
-        }
-
-        Set<String> getNeighbors(String node) {
-            return edges.getOrDefault(node, Collections.emptySet());
-        }
+    @Override
+    public List<String> resolve(String[][] dependencies) {
+        return resolve(DependencyGraph.of(dependencies));
+    }
 
-        Set<String> getAllNodes() {
-            return allNodes;
+    @Override
+    public List<String> resolve(DependencyGraph graph) {
+        int[] order = sortTopologically(graph).order;
+        List<String> result = new ArrayList<>(order.length);
+        for (int node : order) {
+            result.add(graph.name(node));
         }
+        return result;
+    }
 
-        boolean hasUnprocessedNodes(Set<String> processed) {
-            return !processed.containsAll(allNodes);
+    @Override
+    public List<List<String>> resolveLevels(DependencyGraph graph) {
+        Waves waves = sortTopologically(graph);
+        List<List<String>> levels = new ArrayList<>(waves.count);
+        int start = 0;
+        for (int wave = 0; wave < waves.count; wave++) {
+            int end = waves.ends[wave];
+            List<String> level = new ArrayList<>(end - start);
+            for (int i = start; i < end; i++) {
+                level.add(graph.name(waves.order[i]));
+            }
+            levels.add(level);
+            start = end;
         }
+        return levels;
+    }
 
-        TreeSet<String> getNodesWithoutDependencies(Set<String> processed) {
-            return allNodes.stream()
-                    .filter(node -> !processed.contains(node))
-                    .filter(node -> inDegree.get(node) == 0)
-                    .collect(Collectors.toCollection(TreeSet::new));
+    /**
+     * Обрабатывает граф волнами: в каждую волну попадают узлы, у которых
+     * не осталось необработанных зависимостей, внутри волны узлы идут
+     * в лексикографическом порядке. Плоский порядок — это волны, записанные
+     * подряд. Готовые узлы следующей волны собираются по мере обнуления
+     * входящих степеней, поэтому сортировка работает за O(V log V + E).
+     */
+    private Waves sortTopologically(DependencyGraph graph) {
+        int nodeCount = graph.nodeCount();
+        int[] remaining = new int[nodeCount];
+        int[] order = new int[nodeCount];
+        int[] waveEnds = new int[nodeCount];
+        int waveCount = 0;
+        int size = 0;
+
+        for (int node = 0; node < nodeCount; node++) {
+            remaining[node] = graph.inDegree(node);
+            if (remaining[node] == 0) {
+                order[size++] = node;
+            }
         }
 
-        void removeDependency(String node, String dependent) {
-            inDegree.merge(dependent, -1, Integer::sum);
+        int waveStart = 0;
+        while (waveStart < size) {
+            int waveEnd = size;
+            for (int i = waveStart; i < waveEnd; i++) {
+                int node = order[i];
+                for (int e = graph.dependentsStart(node); e < graph.dependentsEnd(node); e++) {
+                    int dependent = graph.dependentAt(e);
+                    if (--remaining[dependent] == 0) {
+                        order[size++] = dependent;
+                    }
+                }
+            }
+            waveEnds[waveCount++] = waveEnd;
+            Arrays.sort(order, waveEnd, size);
+            waveStart = waveEnd;
         }
 
-        void processAvailableNodes(Set<String> processed, List<String> result) {
-            TreeSet<String> available = getNodesWithoutDependencies(processed);
-            available.forEach(node -> {
-                result.add(node);
-                processed.add(node);
-                getNeighbors(node).forEach(neighbor -> removeDependency(node, neighbor));
-            });
+        if (size < nodeCount) {
+            boolean[] unprocessed = new boolean[nodeCount];
+            for (int node = 0; node < nodeCount; node++) {
+                unprocessed[node] = remaining[node] > 0;
+            }
+            List<List<String>> cycles = CycleDetector.findCycles(graph, unprocessed);
+            throw new CyclicDependencyException(describe(cycles), cycles);
         }
+        return new Waves(order, waveEnds, waveCount);
     }
 
-    @Override
-    public List<String> resolve(String[][] dependencies) {
-        DependencyGraph graph = buildGraph(dependencies);
-        return sortTopologically(graph);
-    }
-
-    private DependencyGraph buildGraph(String[][] dependencies) {
-        DependencyGraph graph = new DependencyGraph();
-        Stream.of(dependencies)
-                .forEach(dep -> graph.addDependency(dep[0], dep[1]));
-        return graph;
-    }
-
-    private List<String> sortTopologically(DependencyGraph graph) {
-        List<String> result = new ArrayList<>();
-        Set<String> processed = new HashSet<>();
-
-        while (graph.hasUnprocessedNodes(processed)) {
-            TreeSet<String> available = graph.getNodesWithoutDependencies(processed);
-
-            if (available.isEmpty()) {
-                List<String> cycle = findCyclePath(graph, processed);
-                String path = String.join(" -> ", cycle);
-                throw new CyclicDependencyException("Found cyclic dependency: " + path);
-            }
-
-            graph.processAvailableNodes(processed, result);
+    private static String describe(List<List<String>> cycles) {
+        if (cycles.size() == 1) {
+            return "Found cyclic dependency: " + String.join(" -> ", cycles.get(0));
         }
-        return result;
+        StringBuilder message = new StringBuilder("Found " + cycles.size() + " cyclic dependencies:");
+        for (List<String> cycle : cycles) {
+            message.append("\n  ").append(String.join(" -> ", cycle));
+        }
+        return message.toString();
     }
 
-    private List<String> findCyclePath(DependencyGraph graph, Set<String> processed) {
-        String start = graph.getAllNodes().stream()
-                .filter(node -> !processed.contains(node))
-                .findFirst()
-                .get();
-        List<String> path = new ArrayList<>();
-        Set<String> visited = new HashSet<>();
-        String current = start;
-
-        while (!visited.contains(current)) {
-            path.add(current);
-            visited.add(current);
-            current = graph.getNeighbors(current).stream()
-                    .filter(n -> !processed.contains(n))
-                    .findFirst()
-                    .get();
+    /**
+     * Топологический порядок, разбитый на волны: волна i занимает
+     * order[ends[i - 1]..ends[i]), где ends[-1] = 0
+     */
+    private static final class Waves {
+        final int[] order;
+        final int[] ends;
+        final int count;
+
+        Waves(int[] order, int[] ends, int count) {
+            this.order = order;
+            this.ends = ends;
+            this.count = count;
         }
-
-        path.add(current);
-
-        int startIndex = path.indexOf(current);
-        return path.subList(startIndex, path.size());
     }
-}
\ No newline at end of file
+}
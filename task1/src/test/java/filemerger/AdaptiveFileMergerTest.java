@@ -0,0 +1,71 @@
+package filemerger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveFileMergerTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldReadOnceWhenTreeFitsIntoBudget() throws Exception {
+        // given
+        Path root = createTree(10, 100);
+        AdaptiveFileMerger merger = new AdaptiveFileMerger(1024 * 1024);
+
+        // when
+        merger.merge(root.toString(), tempDir.resolve("output.txt").toString());
+
+        // then
+        assertEquals("fused", merger.getLastStrategy());
+        assertEquals(expectedOutput(root), Files.readString(tempDir.resolve("output.txt")));
+    }
+
+    @Test
+    void shouldStreamWhenLargestFileDoesNotFitIntoBudget() throws Exception {
+        // given
+        Path root = createTree(10, 1000);
+        AdaptiveFileMerger merger = new AdaptiveFileMerger(1000, 4);
+
+        // when
+        merger.merge(root.toString(), tempDir.resolve("output.txt").toString());
+
+        // then
+        assertEquals("streaming-zero-copy", merger.getLastStrategy());
+        assertEquals(expectedOutput(root), Files.readString(tempDir.resolve("output.txt")));
+    }
+
+    @Test
+    void shouldScanInParallelWhenTreeHasManyFiles() throws Exception {
+        // given
+        Path root = createTree(2048, 10);
+        AdaptiveFileMerger merger = new AdaptiveFileMerger(1000, 4);
+
+        // when
+        merger.merge(root.toString(), tempDir.resolve("output.txt").toString());
+
+        // then
+        assertEquals("parallel(4)-in-memory-zero-copy", merger.getLastStrategy());
+        assertEquals(expectedOutput(root), Files.readString(tempDir.resolve("output.txt")));
+    }
+
+    private Path createTree(int fileCount, int fileSize) throws Exception {
+        Path root = Files.createDirectories(tempDir.resolve("root"));
+        for (int i = 0; i < fileCount; i++) {
+            String require = i > 0 ? "require 'file" + (i - 1) + ".txt'\n" : "";
+            Files.writeString(root.resolve("file" + i + ".txt"), require + "x".repeat(fileSize));
+        }
+        return root;
+    }
+
+    private String expectedOutput(Path root) throws Exception {
+        Path expected = tempDir.resolve("expected.txt");
+        FileMergerFactory.createStreamingMerger().merge(root.toString(), expected.toString());
+        return Files.readString(expected);
+    }
+}
@@ -0,0 +1,91 @@
+package filemerger;
+
+import filemerger.content.StreamingContentMerger;
+import filemerger.dependency.DependencyExtractor;
+import filemerger.dependency.StreamingDependencyExtractor;
+import filemerger.order.TopologicalOrderResolver;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchFileMergerTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldMatchIndividualMergesAndReadSharedFilesOnce() throws Exception {
+        // given
+        Path shared = tempDir.resolve("shared");
+        Files.createDirectories(shared);
+        Files.writeString(shared.resolve("base.txt"), "Base");
+        Files.writeString(shared.resolve("util.txt"), "Util\n*require 'lib/base.txt'*");
+
+        Path first = tempDir.resolve("first");
+        Path second = tempDir.resolve("second");
+        for (Path root : List.of(first, second)) {
+            Files.createDirectories(root.resolve("lib"));
+            Files.createSymbolicLink(root.resolve("lib/base.txt"), shared.resolve("base.txt"));
+            Files.createSymbolicLink(root.resolve("lib/util.txt"), shared.resolve("util.txt"));
+        }
+        Files.writeString(first.resolve("app.txt"), "First\n*require 'lib/util.txt'*");
+        Files.writeString(second.resolve("app.txt"), "Second\n*require 'lib/base.txt'*");
+
+        AtomicInteger extractions = new AtomicInteger();
+        StreamingDependencyExtractor delegate = new StreamingDependencyExtractor();
+        DependencyExtractor counting = (filePath, rootPath) -> {
+            extractions.incrementAndGet();
+            return delegate.extractDependencies(filePath, rootPath);
+        };
+        BatchFileMerger batch = new BatchFileMerger(
+            counting, new StreamingContentMerger(), new TopologicalOrderResolver(), 4, 2);
+
+        // when
+        List<MergeResult> results = batch.mergeAll(List.of(
+            new BatchFileMerger.Job(first.toString(), tempDir.resolve("first.out").toString()),
+            new BatchFileMerger.Job(second.toString(), tempDir.resolve("second.out").toString())
+        ));
+
+        // then
+        assertEquals(2, results.size());
+        assertEquals(4, extractions.get());
+        assertEquals(4, batch.getLastExtractions());
+        assertEquals(2, batch.getLastDeduplicatedReads());
+
+        FileMerger single = FileMergerFactory.createStreamingMerger();
+        single.merge(first.toString(), tempDir.resolve("first.expected").toString());
+        single.merge(second.toString(), tempDir.resolve("second.expected").toString());
+        assertEquals(Files.readString(tempDir.resolve("first.expected")), Files.readString(tempDir.resolve("first.out")));
+        assertEquals(Files.readString(tempDir.resolve("second.expected")), Files.readString(tempDir.resolve("second.out")));
+        assertEquals(Files.size(tempDir.resolve("first.out")), results.get(0).getOutputSize());
+    }
+
+    @Test
+    void shouldCompleteOtherJobsWhenOneFails() throws Exception {
+        // given
+        Path good = tempDir.resolve("good");
+        Path bad = tempDir.resolve("bad");
+        Files.createDirectories(good);
+        Files.createDirectories(bad);
+        Files.writeString(good.resolve("a.txt"), "A\n*require 'b.txt'*");
+        Files.writeString(good.resolve("b.txt"), "B");
+        Files.writeString(bad.resolve("a.txt"), "*require 'missing.txt'*");
+        BatchFileMerger batch = new BatchFileMerger(
+            new StreamingDependencyExtractor(), new StreamingContentMerger(), new TopologicalOrderResolver(), 2, 1);
+
+        // when
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> batch.mergeAll(List.of(
+            new BatchFileMerger.Job(bad.toString(), tempDir.resolve("bad.out").toString()),
+            new BatchFileMerger.Job(good.toString(), tempDir.resolve("good.out").toString())
+        )));
+
+        // then
+        assertTrue(exception.getMessage().contains(bad.toString()));
+        assertEquals("B\n\nA\n*require 'b.txt'*", Files.readString(tempDir.resolve("good.out")));
+    }
+}
@@ -0,0 +1,49 @@
+package filemerger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExternalFileMergerTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldMatchStreamingMergerWithTinyMemoryBudget() throws Exception {
+        // given
+        Path root = tempDir.resolve("root");
+        Path work = tempDir.resolve("work");
+        Random random = new Random(7);
+        for (int i = 0; i < 300; i++) {
+            Path dir = root.resolve("d" + i % 7);
+            Files.createDirectories(dir);
+            StringBuilder content = new StringBuilder("  File " + i + "\n");
+            for (int d = 0; d < random.nextInt(3) && i > 0; d++) {
+                int dependency = random.nextInt(i);
+                content.append("*require 'd").append(dependency % 7).append("/f").append(dependency).append(".txt'*\n");
+            }
+            Files.writeString(dir.resolve("f" + i + ".txt"), content);
+        }
+        Path expected = tempDir.resolve("expected.out");
+        Path actual = tempDir.resolve("actual.out");
+        MergeResult expectedResult = FileMergerFactory.createStreamingMerger().merge(root.toString(), expected.toString());
+
+        // when
+        MergeResult result = FileMergerFactory.createExternalMerger(2048, work.toString())
+            .merge(root.toString(), actual.toString());
+
+        // then
+        assertArrayEquals(Files.readAllBytes(expected), Files.readAllBytes(actual));
+        assertEquals(300, result.getFileCount());
+        assertEquals(expectedResult.getEstimatedBytesRead(), result.getEstimatedBytesRead());
+        try (Stream<Path> files = Files.list(work)) {
+            assertEquals(0, files.count());
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package filemerger;
+
+import filemerger.content.ChannelContentMerger;
+import filemerger.dependency.DependencyExtractor;
+import filemerger.dependency.StreamingDependencyExtractor;
+import filemerger.order.TopologicalOrderResolver;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileMergeWatcherTest {
+    private static final Duration DEBOUNCE = Duration.ofMillis(50);
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldRebuildOutputWhenDependencyChanges() throws Exception {
+        // given
+        Path root = Files.createDirectories(tempDir.resolve("root"));
+        Path output = tempDir.resolve("output.txt");
+        Files.writeString(root.resolve("a.txt"), "require 'b.txt'\nContent A");
+        Files.writeString(root.resolve("b.txt"), "Content B");
+        Files.writeString(root.resolve("c.txt"), "require 'b.txt'\nContent C");
+
+        try (FileMergeWatcher watcher = FileMergerFactory.createWatcher(root.toString(), output.toString(), DEBOUNCE)) {
+            watcher.start();
+            assertEquals(1, watcher.getMergeCount());
+
+            // when
+            Files.writeString(root.resolve("b.txt"), "require 'c.txt'\nContent B");
+            Files.writeString(root.resolve("c.txt"), "Content C");
+
+            // then
+            String result = awaitOutput(watcher, output, content -> content.startsWith("Content C") && content.endsWith("Content A"));
+            assertTrue(result.indexOf("Content C") < result.indexOf("Content B"));
+            assertTrue(result.indexOf("Content B") < result.indexOf("Content A"));
+        }
+    }
+
+    @Test
+    void shouldPickUpFilesInNewDirectories() throws Exception {
+        // given
+        Path root = Files.createDirectories(tempDir.resolve("root"));
+        Path output = tempDir.resolve("output.txt");
+        Files.writeString(root.resolve("a.txt"), "require 'b.txt'\nContent A");
+        Files.writeString(root.resolve("b.txt"), "Content B");
+
+        try (FileMergeWatcher watcher = FileMergerFactory.createWatcher(root.toString(), output.toString(), DEBOUNCE)) {
+            watcher.start();
+
+            // when
+            Path nested = Files.createDirectories(root.resolve("nested"));
+            Files.writeString(nested.resolve("n.txt"), "require 'a.txt'\nContent N");
+
+            // then
+            awaitOutput(watcher, output, content -> content.endsWith("Content N"));
+        }
+    }
+
+    @Test
+    void shouldForgetFilesOfMovedDirectory() throws Exception {
+        // given
+        Path root = Files.createDirectories(tempDir.resolve("root"));
+        Path output = tempDir.resolve("output.txt");
+        Path nested = Files.createDirectories(root.resolve("nested/deeper"));
+        Files.writeString(root.resolve("a.txt"), "Content A");
+        Files.writeString(root.resolve("b.txt"), "require 'a.txt'\nContent B");
+        Files.writeString(nested.resolve("n.txt"), "require 'a.txt'\nContent N");
+
+        try (FileMergeWatcher watcher = FileMergerFactory.createWatcher(root.toString(), output.toString(), DEBOUNCE)) {
+            watcher.start();
+            assertTrue(Files.readString(output).contains("Content N"));
+
+            // when
+            Files.move(root.resolve("nested"), tempDir.resolve("moved"));
+
+            // then
+            String expected = "Content A\n\nrequire 'a.txt'\nContent B";
+            assertEquals(expected, awaitOutput(watcher, output, expected::equals));
+
+            // when
+            Files.writeString(root.resolve("b.txt"), "require 'a.txt'\nContent B2");
+
+            // then
+            awaitOutput(watcher, output, content -> content.endsWith("Content B2"));
+        }
+    }
+
+    @Test
+    void shouldIgnoreOutputInsideRoot() throws Exception {
+        // given
+        Path root = Files.createDirectories(tempDir.resolve("root"));
+        Path output = root.resolve("output.txt");
+        Files.writeString(root.resolve("a.txt"), "Content A");
+        Files.writeString(root.resolve("b.txt"), "require 'a.txt'\nContent B");
+        Files.writeString(output, "require 'b.txt'\nStale output");
+
+        try (FileMergeWatcher watcher = FileMergerFactory.createWatcher(root.toString(), output.toString(), DEBOUNCE)) {
+            // when
+            watcher.start();
+
+            // then
+            assertEquals("Content A\n\nrequire 'a.txt'\nContent B", Files.readString(output));
+        }
+    }
+
+    @Test
+    void shouldKeepGraphUnchangedWhenUpdateFails() throws Exception {
+        // given
+        Path root = Files.createDirectories(tempDir.resolve("root"));
+        Path output = tempDir.resolve("output.txt");
+        Files.writeString(root.resolve("a.txt"), "Content A");
+        Files.writeString(root.resolve("b.txt"), "require 'a.txt'\nContent B");
+        StreamingDependencyExtractor delegate = new StreamingDependencyExtractor();
+        DependencyExtractor failing = (filePath, rootPath) -> {
+            if (filePath.endsWith("z.txt")) {
+                throw new RuntimeException("Failed to read file: " + filePath);
+            }
+            return delegate.extractDependencies(filePath, rootPath);
+        };
+
+        try (FileMergeWatcher watcher = new FileMergeWatcher(failing, new ChannelContentMerger(),
+                new TopologicalOrderResolver(), root.toString(), output.toString(), DEBOUNCE)) {
+            watcher.start();
+
+            // when
+            Files.writeString(root.resolve("c.txt"), "require 'b.txt'\nContent C");
+            Files.writeString(root.resolve("z.txt"), "Broken");
+            Thread.sleep(DEBOUNCE.toMillis() * 4);
+            Files.delete(root.resolve("z.txt"));
+            Files.writeString(root.resolve("c.txt"), "require 'b.txt'\nContent C");
+
+            // then
+            awaitOutput(watcher, output, content -> content.endsWith("Content C"));
+        }
+    }
+
+    /**
+     * Ожидает очередную запись выходного файла, пока его содержимое не удовлетворит условию
+     */
+    private static String awaitOutput(FileMergeWatcher watcher, Path output, Predicate<String> condition)
+            throws Exception {
+        long merges = watcher.getMergeCount();
+        String content = readOutput(output);
+        while (!condition.test(content)) {
+            merges++;
+            assertTrue(watcher.awaitMergeCount(merges, TIMEOUT), "Output was not rewritten within " + TIMEOUT);
+            content = readOutput(output);
+        }
+        return content;
+    }
+
+    private static String readOutput(Path output) {
+        try {
+            return Files.readString(output);
+        } catch (Exception e) {
+            return "";
+        }
+    }
+}
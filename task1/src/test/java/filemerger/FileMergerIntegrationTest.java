@@ -1,29 +1,55 @@
 package filemerger;
 
 import filemerger.exceptions.CyclicDependencyException;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.junit.jupiter.api.io.TempDir;
 
+import java.io.ByteArrayOutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
 class FileMergerIntegrationTest {
+    /** Рабочая директория внешнего слияния; удаляется после всех тестов, а не попадает в общий tmp */
+    @TempDir
+    static Path spillDirectory;
+
     @TempDir
     Path tempDir;
 
     Stream<FileMerger> implementations() {
         return Stream.of(
             FileMergerFactory.createInMemoryMerger(),
-            FileMergerFactory.createStreamingMerger()
+            FileMergerFactory.createStreamingMerger(),
+            FileMergerFactory.createZeroCopyMerger(),
+            FileMergerFactory.createVectorizedMerger(),
+            FileMergerFactory.createIncrementalMerger(),
+            FileMergerFactory.createPrefetchingMerger(2, 1024),
+            FileMergerFactory.createParallelWriteMerger(3),
+            FileMergerFactory.createParallelMerger(4),
+            FileMergerFactory.createFusedMerger(1024 * 1024),
+            FileMergerFactory.createAdaptiveMerger(64 * 1024 * 1024),
+            FileMergerFactory.createExternalMerger(256, spillDirectory.toString())
         );
     }
 
+    @AfterAll
+    void shouldNotLeaveSpillFiles() throws Exception {
+        try (Stream<Path> files = Files.list(spillDirectory)) {
+            assertEquals(List.of(), files.toList());
+        }
+    }
+
     @ParameterizedTest
     @MethodSource("implementations")
     void shouldProcessExampleFromTaskDescription(FileMerger merger) throws Exception {
@@ -233,4 +259,90 @@ class FileMergerIntegrationTest {
         assertFalse(result.isBlank());
         assertTrue(result.contains("*require 'folder/A.txt'*"));
     }
-}
\ No newline at end of file
+
+    @ParameterizedTest
+    @MethodSource("implementations")
+    void shouldReportMergeResultAndStages(FileMerger merger) throws Exception {
+        // given
+        Path root = Files.createTempDirectory(tempDir, "stats");
+        Files.writeString(root.resolve("A.txt"), "Content A\n*require 'B.txt'*");
+        Files.writeString(root.resolve("B.txt"), "  Content B  ");
+        Files.writeString(root.resolve("C.txt"), "Isolated");
+        Path outputFile = tempDir.resolve(root.getFileName() + ".out");
+        List<String> events = new ArrayList<>();
+        MergeListener listener = new MergeListener() {
+            @Override
+            public void onStageStarted(MergeStage stage) {
+                events.add("start " + stage);
+            }
+
+            @Override
+            public void onStageCompleted(MergeStage stage, Duration duration) {
+                events.add("end " + stage);
+            }
+
+            @Override
+            public void onMergeCompleted(MergeResult result) {
+                events.add("done");
+            }
+        };
+
+        // when
+        MergeResult result = merger.merge(root.toString(), outputFile.toString(), listener);
+
+        // then
+        assertEquals(List.of(
+            "start WALK", "end WALK",
+            "start EXTRACT", "end EXTRACT",
+            "start RESOLVE", "end RESOLVE",
+            "start WRITE", "end WRITE",
+            "done"
+        ), events);
+        assertEquals(3, result.getFileCount());
+        assertEquals(2, result.getNodeCount());
+        assertEquals(1, result.getEdgeCount());
+        assertEquals(Files.size(outputFile), result.getOutputSize());
+        assertTrue(result.getEstimatedBytesRead() > 0);
+        assertFalse(result.getTotalDuration().isNegative());
+        assertEquals(4, result.getStageDurations().size());
+    }
+
+    @ParameterizedTest
+    @MethodSource("implementations")
+    void shouldWriteSameBytesToOutputStream(FileMerger merger) throws Exception {
+        // given
+        Path root = Files.createTempDirectory(tempDir, "stream");
+        Files.writeString(root.resolve("A.txt"), "Content A\n*require 'B.txt'*\n");
+        Files.writeString(root.resolve("B.txt"), "\n Content B ");
+        Path outputFile = tempDir.resolve(root.getFileName() + ".out");
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+
+        merger.merge(root.toString(), outputFile.toString());
+
+        // when
+        MergeResult result = merger.merge(root.toString(), stream);
+
+        // then
+        assertArrayEquals(Files.readAllBytes(outputFile), stream.toByteArray());
+        assertEquals(stream.size(), result.getOutputSize());
+    }
+
+    @Test
+    void shouldNotMergeOutputFileInsideRoot() throws Exception {
+        // given
+        Path root = Files.createTempDirectory(tempDir, "inside");
+        Files.writeString(root.resolve("a.txt"), "Content A");
+        Files.writeString(root.resolve("b.txt"), "*require 'a.txt'*\nContent B");
+        Path output = root.resolve("output.txt");
+        FileMerger merger = FileMergerFactory.createStreamingMerger();
+        merger.merge(root.toString(), output.toString());
+        String first = Files.readString(output);
+
+        // when
+        MergeResult result = merger.merge(root.toString(), output.toString());
+
+        // then
+        assertEquals(first, Files.readString(output));
+        assertEquals(2, result.getFileCount());
+    }
+}
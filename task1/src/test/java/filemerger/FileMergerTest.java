@@ -2,6 +2,7 @@ package filemerger;
 
 import filemerger.dependency.DependencyExtractor;
 import filemerger.content.ContentMerger;
+import filemerger.order.DependencyGraph;
 import filemerger.order.OrderResolver;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -46,7 +47,7 @@ class FileMergerUnitTest {
 
         when(dependencyExtractor.extractDependencies(anyString(), eq(rootPath)))
             .thenReturn(List.of());
-        when(orderResolver.resolve(any())).thenReturn(List.of(file1, file2));
+        when(orderResolver.resolve(any(DependencyGraph.class))).thenReturn(List.of(file1, file2));
 
         // when
         fileMerger.merge(rootPath, outputPath);
@@ -55,7 +56,7 @@ class FileMergerUnitTest {
         InOrder inOrder = inOrder(dependencyExtractor, orderResolver, contentMerger);
         inOrder.verify(dependencyExtractor, atLeastOnce())
             .extractDependencies(anyString(), eq(rootPath));
-        inOrder.verify(orderResolver).resolve(any());
+        inOrder.verify(orderResolver).resolve(any(DependencyGraph.class));
         inOrder.verify(contentMerger).merge(eq(List.of(file1, file2)), eq(rootPath), eq(outputPath));
     }
 }
\ No newline at end of file
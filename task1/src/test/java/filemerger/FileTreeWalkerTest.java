@@ -0,0 +1,111 @@
+package filemerger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileTreeWalkerTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldFindSameFilesAsFilesWalkByDefault() throws Exception {
+        // given
+        createTree();
+
+        // when
+        List<String> files = FileTreeWalker.DEFAULT.walk(tempDir.toString());
+
+        // then
+        assertEquals(walkWithFilesWalk(), files);
+        assertTrue(files.contains(".git/objects/ignored.txt"));
+    }
+
+    @Test
+    void shouldSkipPrunedDirectoriesAndApplyIncludes() throws Exception {
+        // given
+        createTree();
+        FileTreeWalker walker = FileTreeWalker.builder()
+            .prune(".git")
+            .prune("node_modules")
+            .prune("src/build")
+            .include("*.txt")
+            .include("docs/*.md")
+            .build();
+
+        // when
+        List<String> files = walker.walk(tempDir.toString());
+
+        // then
+        assertEquals(List.of(
+            "docs/readme.md",
+            "docs/readme.txt",
+            "root.txt",
+            "src/a/deep/file.txt",
+            "src/a/file.txt",
+            "src/b/file.txt"
+        ), files);
+    }
+
+    @Test
+    void shouldReturnSameSortedListInParallel() throws Exception {
+        // given
+        for (int i = 0; i < 20; i++) {
+            Path dir = Files.createDirectories(tempDir.resolve("d" + i % 4 + "/e" + i % 5 + "/f" + i));
+            Files.writeString(dir.resolve("file" + i + ".txt"), "x");
+            Files.writeString(tempDir.resolve("d" + i % 4).resolve("top" + i + ".txt"), "x");
+        }
+        FileTreeWalker walker = FileTreeWalker.builder().parallelism(4).splitDepth(3).build();
+
+        // when
+        List<String> files = walker.walk(tempDir.toString());
+
+        // then
+        assertEquals(walkWithFilesWalk(), files);
+        assertEquals(40, files.size());
+    }
+
+    @Test
+    void shouldThrowWhenRootNotFound() {
+        // when & then
+        assertThrows(RuntimeException.class, () ->
+            FileTreeWalker.DEFAULT.walk(tempDir.resolve("missing").toString()));
+    }
+
+    private void createTree() throws Exception {
+        Files.writeString(tempDir.resolve("root.txt"), "root");
+        Files.writeString(tempDir.resolve("image.png"), "png");
+        Files.createDirectories(tempDir.resolve("src/a/deep"));
+        Files.createDirectories(tempDir.resolve("src/b"));
+        Files.createDirectories(tempDir.resolve("src/build"));
+        Files.createDirectories(tempDir.resolve(".git/objects"));
+        Files.createDirectories(tempDir.resolve("node_modules/pkg"));
+        Files.createDirectories(tempDir.resolve("docs"));
+        Files.createDirectories(tempDir.resolve("dir.txt"));
+        Files.writeString(tempDir.resolve("src/a/file.txt"), "a");
+        Files.writeString(tempDir.resolve("src/a/deep/file.txt"), "deep");
+        Files.writeString(tempDir.resolve("src/b/file.txt"), "b");
+        Files.writeString(tempDir.resolve("src/build/out.txt"), "out");
+        Files.writeString(tempDir.resolve(".git/objects/ignored.txt"), "git");
+        Files.writeString(tempDir.resolve("node_modules/pkg/index.txt"), "pkg");
+        Files.writeString(tempDir.resolve("docs/readme.md"), "md");
+        Files.writeString(tempDir.resolve("docs/readme.txt"), "txt");
+    }
+
+    private List<String> walkWithFilesWalk() throws Exception {
+        try (Stream<Path> walk = Files.walk(tempDir)) {
+            return walk
+                .filter(Files::isRegularFile)
+                .filter(p -> p.getFileName().toString().endsWith(".txt"))
+                .map(p -> tempDir.relativize(p).toString().replace('\\', '/'))
+                .sorted()
+                .toList();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package filemerger;
+
+import filemerger.order.TopologicalOrderResolver;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FusedFileMergerTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldReadEachCachedFileOnce() throws Exception {
+        // given
+        Path root = createTree();
+        FusedFileMerger merger = new FusedFileMerger(new TopologicalOrderResolver());
+
+        // when
+        merger.merge(root.toString(), tempDir.resolve("output.txt").toString());
+
+        // then
+        assertEquals(merger.getLastInputBytes(), merger.getLastBytesRead());
+        assertEquals(expectedOutput(root), Files.readString(tempDir.resolve("output.txt")));
+    }
+
+    @Test
+    void shouldReReadFilesThatDoNotFitIntoCache() throws Exception {
+        // given
+        Path root = createTree();
+        FusedFileMerger merger = new FusedFileMerger(new TopologicalOrderResolver(), 0, 8);
+
+        // when
+        merger.merge(root.toString(), tempDir.resolve("output.txt").toString());
+
+        // then
+        String output = expectedOutput(root);
+        long rereadBytes = output.length() - 2L * "\n\n".length();
+        assertEquals(merger.getLastInputBytes() + rereadBytes, merger.getLastBytesRead());
+        assertEquals(output, Files.readString(tempDir.resolve("output.txt")));
+    }
+
+    @Test
+    void shouldEvictIsolatedFilesInFavorOfWrittenOnes() throws Exception {
+        // given
+        Path root = createTree();
+        long treeBytes = Files.size(root.resolve("a.txt")) + Files.size(root.resolve("b.txt"))
+            + Files.size(root.resolve("c.txt"));
+        Files.writeString(root.resolve("0-isolated.txt"), "x".repeat((int) treeBytes));
+        FusedFileMerger merger = new FusedFileMerger(new TopologicalOrderResolver(), treeBytes, 1024);
+
+        // when
+        merger.merge(root.toString(), tempDir.resolve("output.txt").toString());
+
+        // then
+        assertEquals(merger.getLastInputBytes(), merger.getLastBytesRead());
+        assertEquals(expectedOutput(root), Files.readString(tempDir.resolve("output.txt")));
+    }
+
+    private Path createTree() throws Exception {
+        Path root = Files.createDirectories(tempDir.resolve("root"));
+        Files.writeString(root.resolve("a.txt"), "require 'b.txt'\n  Content A  \n");
+        Files.writeString(root.resolve("b.txt"), "require 'c.txt'\nContent B");
+        Files.writeString(root.resolve("c.txt"), "\n\nContent C");
+        return root;
+    }
+
+    private String expectedOutput(Path root) throws Exception {
+        Path expected = tempDir.resolve("expected.txt");
+        FileMergerFactory.createStreamingMerger().merge(root.toString(), expected.toString());
+        return Files.readString(expected);
+    }
+}
@@ -0,0 +1,224 @@
+package filemerger;
+
+import filemerger.content.StreamingContentMerger;
+import filemerger.dependency.DependencyExtractor;
+import filemerger.dependency.StreamingDependencyExtractor;
+import filemerger.order.TopologicalOrderResolver;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GraphIndexTest {
+    private static final Supplier<byte[]> NO_HASH = () -> {
+        throw new AssertionError("Hash must not be requested for entries without a stored hash");
+    };
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldRoundTripPathsFingerprintsAndEdges() throws Exception {
+        // given
+        Path indexFile = tempDir.resolve("graph.idx");
+        List<String> files = List.of("b.txt", "a.txt", "дир/ё.txt");
+        List<List<String>> dependencies = List.of(
+            List.of("a.txt", "missing.txt"),
+            List.of(),
+            List.of("b.txt", "a.txt"));
+
+        // when
+        GraphIndex.write(indexFile, tempDir.toString(), files,
+            new long[]{10, 20, 30}, new long[]{1, 2, 3}, dependencies);
+        GraphIndex index = GraphIndex.load(indexFile, tempDir.toString());
+
+        // then
+        assertEquals(3, index.fileCount());
+        for (int i = 0; i < files.size(); i++) {
+            int id = index.find(files.get(i));
+            assertTrue(id >= 0);
+            assertTrue(index.isFresh(id, 10L * (i + 1), i + 1, NO_HASH));
+            assertFalse(index.isFresh(id, 10L * (i + 1), i + 2, NO_HASH));
+            assertEquals(dependencies.get(i), index.dependencies(id));
+        }
+        int missing = index.find("missing.txt");
+        assertTrue(missing >= 0);
+        assertFalse(index.isFresh(missing, 0, 0, NO_HASH));
+        assertEquals(List.of(), index.dependencies(missing));
+        assertEquals(-1, index.find("c.txt"));
+    }
+
+    @Test
+    void shouldTreatIndexOfOtherRootOrCorruptedIndexAsEmpty() throws Exception {
+        // given
+        Path indexFile = tempDir.resolve("graph.idx");
+        GraphIndex.write(indexFile, tempDir.toString(), List.of("a.txt"),
+            new long[]{1}, new long[]{1}, List.of(List.of()));
+        Path corrupted = tempDir.resolve("corrupted.idx");
+        byte[] bytes = Files.readAllBytes(indexFile);
+        Files.write(corrupted, Arrays.copyOf(bytes, bytes.length - 1));
+
+        // when & then
+        assertEquals(-1, GraphIndex.load(indexFile, tempDir.resolve("other").toString()).find("a.txt"));
+        assertEquals(-1, GraphIndex.load(corrupted, tempDir.toString()).find("a.txt"));
+        assertEquals(-1, GraphIndex.load(tempDir.resolve("absent.idx"), tempDir.toString()).find("a.txt"));
+    }
+
+    @Test
+    void shouldTreatIndexWithBrokenOffsetsOrEdgesAsEmpty() throws Exception {
+        // given
+        Path indexFile = tempDir.resolve("graph.idx");
+        GraphIndex.write(indexFile, tempDir.toString(), List.of("a.txt"),
+            new long[]{1}, new long[]{1}, List.of(List.of("b.txt")));
+        byte[] bytes = Files.readAllBytes(indexFile);
+        int pathCount = 2;
+        int edgesAt = 24 + ByteBuffer.wrap(bytes).getInt(20) + 16 * pathCount + 4 * (pathCount + 1);
+        int nameOffsetsAt = edgesAt + 4;
+
+        Path brokenEdge = tempDir.resolve("edge.idx");
+        byte[] edgeBytes = bytes.clone();
+        ByteBuffer.wrap(edgeBytes).putInt(edgesAt, pathCount);
+        Files.write(brokenEdge, edgeBytes);
+
+        Path brokenNames = tempDir.resolve("names.idx");
+        byte[] nameBytes = bytes.clone();
+        ByteBuffer.wrap(nameBytes).putInt(nameOffsetsAt + 4, 100);
+        Files.write(brokenNames, nameBytes);
+
+        // when & then
+        assertTrue(GraphIndex.load(indexFile, tempDir.toString()).find("a.txt") >= 0);
+        assertEquals(-1, GraphIndex.load(brokenEdge, tempDir.toString()).find("a.txt"));
+        assertEquals(-1, GraphIndex.load(brokenNames, tempDir.toString()).find("a.txt"));
+    }
+
+    @Test
+    void shouldRewriteIndexAfterClosingLoadedMapping() throws Exception {
+        // given
+        Path indexFile = tempDir.resolve("graph.idx");
+        GraphIndex.write(indexFile, tempDir.toString(), List.of("a.txt"),
+            new long[]{1}, new long[]{1}, List.of(List.of()));
+        GraphIndex loaded = GraphIndex.load(indexFile, tempDir.toString());
+        loaded.close();
+
+        // when
+        GraphIndex.write(indexFile, tempDir.toString(), List.of("b.txt"),
+            new long[]{2}, new long[]{2}, List.of(List.of()));
+
+        // then
+        try (GraphIndex index = GraphIndex.load(indexFile, tempDir.toString())) {
+            assertEquals(-1, index.find("a.txt"));
+            assertTrue(index.isFresh(index.find("b.txt"), 2, 2, NO_HASH));
+        }
+    }
+
+    @Test
+    void shouldVerifyHashOnlyForRecentlyModifiedFiles() throws Exception {
+        // given
+        Path indexFile = tempDir.resolve("graph.idx");
+        long now = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+        byte[] hash = new byte[32];
+        hash[0] = 1;
+        GraphIndex.write(indexFile, tempDir.toString(), List.of("old.txt", "recent.txt"),
+            new long[]{1, 1}, new long[]{1, now}, new byte[][]{hash.clone(), hash.clone()},
+            List.of(List.of(), List.of()));
+
+        // when & then
+        try (GraphIndex index = GraphIndex.load(indexFile, tempDir.toString())) {
+            assertTrue(index.isFresh(index.find("old.txt"), 1, 1, NO_HASH));
+            assertTrue(index.isFresh(index.find("recent.txt"), 1, now, hash::clone));
+            assertFalse(index.isFresh(index.find("recent.txt"), 1, now, () -> new byte[32]));
+        }
+    }
+
+    @Test
+    void shouldKeepFallbackIndexUsableAfterAnotherFallbackIsClosed() throws Exception {
+        // given
+        Path absent = tempDir.resolve("absent.idx");
+        GraphIndex.load(absent, tempDir.toString()).close();
+
+        // when
+        GraphIndex index = GraphIndex.load(absent, tempDir.toString());
+
+        // then
+        assertEquals(-1, index.find("a.txt"));
+        assertEquals(0, index.fileCount());
+    }
+
+    @Test
+    void shouldRescanFileEditedWithinSameTimestampTick() throws Exception {
+        // given
+        Path root = tempDir.resolve("root");
+        Files.createDirectories(root);
+        Path app = root.resolve("app.txt");
+        Files.writeString(app, "App\n*require 'a.txt'*");
+        Files.writeString(root.resolve("a.txt"), "A");
+        Files.writeString(root.resolve("b.txt"), "B");
+        FileTime tick = Files.getLastModifiedTime(app);
+        SimpleFileMerger merger = new SimpleFileMerger(
+            new StreamingDependencyExtractor(), new StreamingContentMerger(), new TopologicalOrderResolver())
+            .withGraphIndex(tempDir.resolve("index/graph.idx"));
+        Path output = tempDir.resolve("output.txt");
+        merger.merge(root.toString(), output.toString());
+
+        // when
+        Files.writeString(app, "App\n*require 'b.txt'*");
+        Files.setLastModifiedTime(app, tick);
+        merger.merge(root.toString(), output.toString());
+
+        // then
+        assertEquals("B\n\nApp\n*require 'b.txt'*", Files.readString(output));
+    }
+
+    @Test
+    void shouldRescanOnlyChangedFilesAndKeepOutput() throws Exception {
+        // given
+        Path root = tempDir.resolve("root");
+        Files.createDirectories(root.resolve("lib"));
+        Files.writeString(root.resolve("app.txt"), "App\n*require 'lib/a.txt'*");
+        Files.writeString(root.resolve("lib/a.txt"), "A\n*require 'lib/b.txt'*");
+        Files.writeString(root.resolve("lib/b.txt"), "B");
+        Files.writeString(root.resolve("lib/c.txt"), "C");
+
+        Set<String> opened = ConcurrentHashMap.newKeySet();
+        StreamingDependencyExtractor delegate = new StreamingDependencyExtractor();
+        DependencyExtractor recording = (filePath, rootPath) -> {
+            opened.add(root.relativize(Path.of(filePath)).toString().replace('\\', '/'));
+            return delegate.extractDependencies(filePath, rootPath);
+        };
+        SimpleFileMerger merger = new SimpleFileMerger(
+            recording, new StreamingContentMerger(), new TopologicalOrderResolver())
+            .withGraphIndex(tempDir.resolve("index/graph.idx"));
+        Path output = tempDir.resolve("output.txt");
+        merger.merge(root.toString(), output.toString());
+        assertEquals(4, opened.size());
+
+        // when
+        opened.clear();
+        merger.merge(root.toString(), output.toString());
+        Set<String> warm = Set.copyOf(opened);
+
+        opened.clear();
+        Files.writeString(root.resolve("lib/c.txt"), "C\n*require 'lib/b.txt'*");
+        Files.writeString(root.resolve("lib/d.txt"), "D");
+        Files.delete(root.resolve("app.txt"));
+        merger.merge(root.toString(), output.toString());
+
+        // then
+        assertEquals(Set.of(), warm);
+        assertEquals(Set.of("lib/c.txt", "lib/d.txt"), opened);
+        Path expected = tempDir.resolve("expected.txt");
+        FileMergerFactory.createStreamingMerger().merge(root.toString(), expected.toString());
+        assertEquals(Files.readString(expected), Files.readString(output));
+    }
+}
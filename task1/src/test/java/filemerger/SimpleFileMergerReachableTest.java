@@ -0,0 +1,98 @@
+package filemerger;
+
+import filemerger.content.StreamingContentMerger;
+import filemerger.dependency.DependencyExtractor;
+import filemerger.dependency.StreamingDependencyExtractor;
+import filemerger.order.TopologicalOrderResolver;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimpleFileMergerReachableTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldMergeClosureInFullMergeOrderWithoutOpeningOtherFiles() throws Exception {
+        // given
+        Path root = tempDir.resolve("root");
+        Files.createDirectories(root.resolve("lib"));
+        write(root, "app.txt", "App\n*require 'lib/b.txt'*\n*require 'lib/c.txt'*");
+        write(root, "lib/b.txt", "B\n*require 'lib/d.txt'*");
+        write(root, "lib/c.txt", "C\n*require 'lib/d.txt'*\n*require 'lib/e.txt'*");
+        write(root, "lib/d.txt", "D");
+        write(root, "lib/e.txt", "E\n*require 'lib/f.txt'*");
+        write(root, "lib/f.txt", "F");
+        write(root, "other.txt", "Other\n*require 'lib/a.txt'*");
+        write(root, "lib/a.txt", "A\n*require 'lib/d.txt'*");
+        write(root, "unrelated.txt", "Unrelated\n*require 'lib/f.txt'*");
+
+        Set<String> opened = ConcurrentHashMap.newKeySet();
+        StreamingDependencyExtractor delegate = new StreamingDependencyExtractor();
+        DependencyExtractor recording = (filePath, rootPath) -> {
+            opened.add(root.relativize(Path.of(filePath)).toString().replace('\\', '/'));
+            return delegate.extractDependencies(filePath, rootPath);
+        };
+        SimpleFileMerger merger = new SimpleFileMerger(
+            recording, new StreamingContentMerger(), new TopologicalOrderResolver());
+        Path fullOutput = tempDir.resolve("full.out");
+        Path targetedOutput = tempDir.resolve("targeted.out");
+
+        merger.merge(root.toString(), fullOutput.toString());
+        opened.clear();
+
+        // when
+        MergeResult result = merger.mergeReachable(List.of("app.txt"), root.toString(), targetedOutput.toString());
+
+        // then
+        Set<String> closure = Set.of("app.txt", "lib/b.txt", "lib/c.txt", "lib/d.txt", "lib/e.txt", "lib/f.txt");
+        assertEquals(closure, opened);
+        assertEquals(6, result.getFileCount());
+
+        List<String> expected = new ArrayList<>();
+        for (String part : Files.readString(fullOutput).split("\n\n")) {
+            String first = part.lines().findFirst().orElse("");
+            if (Set.of("App", "B", "C", "D", "E", "F").contains(first)) {
+                expected.add(part);
+            }
+        }
+        assertEquals(expected, Arrays.asList(Files.readString(targetedOutput).split("\n\n")));
+    }
+
+    @Test
+    void shouldIncludeEntryWithoutDependencies() throws Exception {
+        // given
+        write(tempDir, "single.txt", "  Single  ");
+        SimpleFileMerger merger = FileMergerFactory.createReachableMerger();
+        Path output = tempDir.resolve("output.out");
+
+        // when
+        merger.mergeReachable(List.of("single.txt", "single.txt"), tempDir.toString(), output.toString());
+
+        // then
+        assertEquals("Single", Files.readString(output));
+    }
+
+    @Test
+    void shouldThrowWhenEntryFileNotFound() {
+        // given
+        SimpleFileMerger merger = FileMergerFactory.createReachableMerger();
+
+        // when & then
+        assertThrows(RuntimeException.class, () ->
+            merger.mergeReachable(List.of("missing.txt"), tempDir.toString(), tempDir.resolve("o.out").toString()));
+    }
+
+    private static void write(Path root, String file, String content) throws Exception {
+        Files.writeString(root.resolve(file), content);
+    }
+}
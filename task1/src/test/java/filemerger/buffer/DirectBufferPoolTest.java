@@ -0,0 +1,125 @@
+package filemerger.buffer;
+
+import filemerger.content.StreamingContentMerger;
+import filemerger.dependency.StreamingDependencyExtractor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DirectBufferPoolTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldReuseReleasedBuffers() {
+        // given
+        DirectBufferPool pool = new DirectBufferPool(1024, 4096);
+
+        // when
+        ByteBuffer first = pool.acquire();
+        first.put((byte) 1);
+        pool.release(first);
+        ByteBuffer second = pool.acquire();
+
+        // then
+        assertSame(first, second);
+        assertTrue(second.isDirect());
+        assertEquals(0, second.position());
+        assertEquals(1, pool.getAllocatedBuffers());
+        assertEquals(1, pool.getBuffersInUse());
+        assertEquals(0.25, pool.getUtilization());
+    }
+
+    @Test
+    void shouldHandOutHeapBuffersWhenBudgetIsExhausted() {
+        // given
+        DirectBufferPool pool = new DirectBufferPool(1024, 2048);
+        ByteBuffer first = pool.acquire();
+        ByteBuffer second = pool.acquire();
+
+        // when
+        ByteBuffer overflow = pool.acquire();
+        pool.release(overflow);
+
+        // then
+        assertFalse(overflow.isDirect());
+        assertEquals(1024, overflow.capacity());
+        assertEquals(2, pool.getAllocatedBuffers());
+        assertEquals(2, pool.getBuffersInUse());
+        assertEquals(1, pool.getOverflowCount());
+        assertEquals(3, pool.getAcquireCount());
+
+        pool.release(first);
+        pool.release(second);
+        assertEquals(0, pool.getBuffersInUse());
+        assertEquals(2, pool.getPeakBuffersInUse());
+    }
+
+    @Test
+    void shouldRejectForeignAndDoubleReleases() {
+        // given
+        DirectBufferPool pool = new DirectBufferPool(1024, 1024);
+        ByteBuffer buffer = pool.acquire();
+        pool.release(buffer);
+
+        // when & then
+        assertThrows(IllegalArgumentException.class, () -> pool.release(buffer));
+        assertThrows(IllegalArgumentException.class, () -> pool.release(ByteBuffer.allocateDirect(1024)));
+        assertEquals(0, pool.getBuffersInUse());
+        assertSame(buffer, pool.acquire());
+        assertFalse(pool.acquire().isDirect());
+    }
+
+    @Test
+    void shouldShareBuffersAcrossMerges() throws Exception {
+        // given
+        DirectBufferPool pool = new DirectBufferPool(64, 1024);
+        Files.writeString(tempDir.resolve("a.txt"), "  A\n*require 'b.txt'*\n" + "текст ".repeat(100));
+        Files.writeString(tempDir.resolve("b.txt"), "B  ");
+        StreamingDependencyExtractor extractor = new StreamingDependencyExtractor(pool, 16);
+        StreamingContentMerger merger = new StreamingContentMerger(pool);
+        Path output = tempDir.resolve("output.out");
+
+        // when
+        for (int i = 0; i < 10; i++) {
+            assertEquals(List.of("b.txt"), extractor.extractDependencies("a.txt", tempDir.toString()));
+            merger.merge(List.of("b.txt", "a.txt"), tempDir.toString(), output.toString());
+        }
+
+        // then
+        assertEquals("B\n\nA\n*require 'b.txt'*\n" + "текст ".repeat(100).trim(), Files.readString(output));
+        assertEquals(1, pool.getAllocatedBuffers());
+        assertEquals(0, pool.getBuffersInUse());
+        assertEquals(0, pool.getOverflowCount());
+        assertEquals(20, pool.getAcquireCount());
+    }
+
+    @Test
+    void shouldRejectInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new DirectBufferPool(0, 1024));
+        assertThrows(IllegalArgumentException.class, () -> new DirectBufferPool(1024, -1));
+        assertThrows(IllegalArgumentException.class,
+            () -> new StreamingDependencyExtractor(new DirectBufferPool(64, 1024), 0));
+    }
+
+    @Test
+    void shouldExtractWithCharBufferLargerThanPooledBufferOrTinyPool() throws Exception {
+        // given
+        String content = "ж".repeat(100) + "\n*require 'b.txt'*\n" + "текст ".repeat(100);
+        Files.writeString(tempDir.resolve("a.txt"), content);
+        DirectBufferPool tinyPool = new DirectBufferPool(4, 1024);
+
+        // when & then
+        assertEquals(List.of("b.txt"), new StreamingDependencyExtractor(new DirectBufferPool(64, 1024), 1024)
+            .extractDependencies("a.txt", tempDir.toString()));
+        assertEquals(List.of("b.txt"), new StreamingDependencyExtractor(tinyPool, 8)
+            .extractDependencies("a.txt", tempDir.toString()));
+        assertEquals(0, tinyPool.getAcquireCount());
+    }
+}
@@ -0,0 +1,38 @@
+package filemerger.content;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChannelContentMergerTest extends ContentMergerTest {
+    private final ContentMerger merger = new ChannelContentMerger();
+
+    @Override
+    ContentMerger getMerger() {
+        return merger;
+    }
+
+    @Test
+    void shouldProduceSameBytesAsStreamingMerger() throws Exception {
+        // given
+        createFile("a.txt", " \t\n  first line\n\nsecond line  \n\n\r\n");
+        createFile("b.txt", "\n\n\n");
+        createFile("c.txt", "");
+        createFile("d.txt", "юникод  \n  текст");
+        List<String> files = List.of("a.txt", "b.txt", "c.txt", "d.txt");
+        Path expectedFile = tempDir.resolve("expected.out");
+        Path actualFile = tempDir.resolve("actual.out");
+
+        new StreamingContentMerger().merge(files, tempDir.toString(), expectedFile.toString());
+
+        // when
+        new ChannelContentMerger(3).merge(files, tempDir.toString(), actualFile.toString());
+
+        // then
+        assertArrayEquals(Files.readAllBytes(expectedFile), Files.readAllBytes(actualFile));
+    }
+}
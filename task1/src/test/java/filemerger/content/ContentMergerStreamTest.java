@@ -0,0 +1,48 @@
+package filemerger.content;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContentMergerStreamTest {
+    @Test
+    void shouldWriteToStreamThroughChannelMethodAndFlush() {
+        // given
+        ContentMerger merger = new ContentMerger() {
+            @Override
+            public void merge(List<String> sortedPaths, String rootPath, String outputPath) {
+                throw new AssertionError("Path method must not be used for streams");
+            }
+
+            @Override
+            public void merge(List<String> sortedPaths, String rootPath, WritableByteChannel output) {
+                try {
+                    output.write(ByteBuffer.wrap(String.join("|", sortedPaths).getBytes(StandardCharsets.UTF_8)));
+                } catch (IOException e) {
+                    throw new RuntimeException("Failed to merge files", e);
+                }
+            }
+        };
+        boolean[] flushed = new boolean[1];
+        ByteArrayOutputStream stream = new ByteArrayOutputStream() {
+            @Override
+            public void flush() {
+                flushed[0] = true;
+            }
+        };
+
+        // when
+        merger.merge(List.of("a.txt", "b.txt"), "root", stream);
+
+        // then
+        assertEquals("a.txt|b.txt", stream.toString(StandardCharsets.UTF_8));
+        assertTrue(flushed[0]);
+    }
+}
@@ -3,6 +3,7 @@ package filemerger.content;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import java.io.ByteArrayOutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
@@ -95,6 +96,25 @@ abstract class ContentMergerTest {
         );
     }
 
+    @Test
+    void shouldWriteSameBytesToOutputStream() throws Exception {
+        // given
+        createFile("a.txt", "  first\n");
+        createFile("b.txt", "second");
+        createFile("c.txt", "\n третий \n");
+        List<String> files = List.of("a.txt", "b.txt", "c.txt");
+        Path outputFile = tempDir.resolve("output.txt");
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+
+        getMerger().merge(files, tempDir.toString(), outputFile.toString());
+
+        // when
+        getMerger().merge(files, tempDir.toString(), stream);
+
+        // then
+        assertArrayEquals(Files.readAllBytes(outputFile), stream.toByteArray());
+    }
+
     protected Path createFile(String name, String content) throws Exception {
         Path file = tempDir.resolve(name);
         Files.writeString(file, content);
@@ -0,0 +1,56 @@
+package filemerger.content;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileTransferTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldTransferRange() throws Exception {
+        // given
+        Path file = tempDir.resolve("a.txt");
+        Files.writeString(file, "  content  ");
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // when
+        try (FileChannel input = FileChannel.open(file, StandardOpenOption.READ)) {
+            FileTransfer.transferFully(input, 2, 9, Channels.newChannel(output), file);
+        }
+
+        // then
+        assertEquals("content", output.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void shouldFailInsteadOfLoopingWhenFileShrinks() throws Exception {
+        // given
+        Path file = tempDir.resolve("a.txt");
+        Files.writeString(file, "content");
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // when
+        RuntimeException error;
+        try (FileChannel input = FileChannel.open(file, StandardOpenOption.READ)) {
+            long end = input.size();
+            Files.writeString(file, "cont");
+            error = assertThrows(RuntimeException.class,
+                () -> FileTransfer.transferFully(input, 0, end, Channels.newChannel(output), file));
+        }
+
+        // then
+        assertEquals("File changed during merge: " + file, error.getMessage());
+        assertEquals("cont", output.toString(StandardCharsets.UTF_8));
+    }
+}
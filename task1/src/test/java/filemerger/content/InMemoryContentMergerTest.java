@@ -1,5 +1,13 @@
 package filemerger.content;
 
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
 class InMemoryContentMergerTest extends ContentMergerTest {
     private final ContentMerger merger = new InMemoryContentMerger();
 
@@ -7,4 +15,18 @@ class InMemoryContentMergerTest extends ContentMergerTest {
     ContentMerger getMerger() {
         return merger;
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldKeepFileBytesUnchanged() throws Exception {
+        // given
+        createFile("a.txt", "  первый\r\n");
+        createFile("b.txt", "\tвторой ");
+        Path outputFile = tempDir.resolve("output.out");
+
+        // when
+        getMerger().merge(List.of("a.txt", "b.txt"), tempDir.toString(), outputFile.toString());
+
+        // then
+        assertEquals("  первый\r\n\n\n\tвторой ", Files.readString(outputFile));
+    }
+}
@@ -0,0 +1,166 @@
+package filemerger.content;
+
+import filemerger.FileMerger;
+import filemerger.FileMergerFactory;
+import filemerger.MergeResult;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalContentMergerTest extends ContentMergerTest {
+    private final IncrementalContentMerger merger = new IncrementalContentMerger();
+
+    @Override
+    ContentMerger getMerger() {
+        return merger;
+    }
+
+    @Test
+    void shouldRewriteOnlyChangedTail() throws Exception {
+        // given
+        createFile("a.txt", "first file");
+        createFile("b.txt", "second file");
+        createFile("c.txt", "third file");
+        List<String> files = List.of("a.txt", "b.txt", "c.txt");
+        Path outputFile = tempDir.resolve("output.txt");
+        merger.merge(files, tempDir.toString(), outputFile.toString());
+
+        // when
+        createFile("c.txt", "  changed third file\n");
+        long written = merger.mergeCountingWrites(files, tempDir.toString(), outputFile.toString());
+
+        // then
+        assertEquals("first file\n\nsecond file\n\nchanged third file", Files.readString(outputFile));
+        assertEquals("\n\nchanged third file".length(), written);
+    }
+
+    @Test
+    void shouldSkipWritingWhenNothingChanged() throws Exception {
+        // given
+        createFile("a.txt", "first file");
+        createFile("b.txt", "second file");
+        List<String> files = List.of("a.txt", "b.txt");
+        Path outputFile = tempDir.resolve("output.txt");
+        merger.merge(files, tempDir.toString(), outputFile.toString());
+
+        // when
+        long written = merger.mergeCountingWrites(files, tempDir.toString(), outputFile.toString());
+
+        // then
+        assertEquals("first file\n\nsecond file", Files.readString(outputFile));
+        assertEquals(0, written);
+    }
+
+    @Test
+    void shouldDetectSameSizeEditWithinSameModificationTime() throws Exception {
+        // given
+        createFile("a.txt", "first file");
+        createFile("b.txt", "second file");
+        List<String> files = List.of("a.txt", "b.txt");
+        Path outputFile = tempDir.resolve("output.txt");
+        merger.merge(files, tempDir.toString(), outputFile.toString());
+
+        // when
+        Path source = tempDir.resolve("a.txt");
+        FileTime modified = Files.getLastModifiedTime(source);
+        createFile("a.txt", "FIRST FILE");
+        Files.setLastModifiedTime(source, modified);
+        merger.merge(files, tempDir.toString(), outputFile.toString());
+
+        // then
+        assertEquals("FIRST FILE\n\nsecond file", Files.readString(outputFile));
+    }
+
+    @Test
+    void shouldNotLeaveTemporaryManifests() throws Exception {
+        // given
+        createFile("a.txt", "first file");
+        Path outputFile = tempDir.resolve("output.txt");
+
+        // when
+        merger.merge(List.of("a.txt"), tempDir.toString(), outputFile.toString());
+        merger.merge(List.of("a.txt"), tempDir.toString(), tempDir.resolve("other.txt").toString());
+
+        // then
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertTrue(files.noneMatch(file -> file.getFileName().toString().endsWith(".tmp")));
+        }
+    }
+
+    @Test
+    void shouldFollowOrderChanges() throws Exception {
+        // given
+        createFile("a.txt", "first file");
+        createFile("b.txt", "second file");
+        createFile("c.txt", "third file");
+        Path outputFile = tempDir.resolve("output.txt");
+        merger.merge(List.of("a.txt", "b.txt", "c.txt"), tempDir.toString(), outputFile.toString());
+
+        // when
+        merger.merge(List.of("a.txt", "c.txt"), tempDir.toString(), outputFile.toString());
+
+        // then
+        assertEquals("first file\n\nthird file", Files.readString(outputFile));
+    }
+
+    @Test
+    void shouldRewriteWholeOutputModifiedExternally() throws Exception {
+        // given
+        createFile("a.txt", "first file");
+        createFile("b.txt", "second file");
+        List<String> files = List.of("a.txt", "b.txt");
+        Path outputFile = tempDir.resolve("output.txt");
+        merger.merge(files, tempDir.toString(), outputFile.toString());
+
+        // when
+        Files.writeString(outputFile, "garbage");
+        merger.merge(files, tempDir.toString(), outputFile.toString());
+
+        // then
+        assertEquals("first file\n\nsecond file", Files.readString(outputFile));
+    }
+
+    @Test
+    void shouldRewriteWholeOutputForOtherRoot() throws Exception {
+        // given
+        Path first = Files.createDirectories(tempDir.resolve("first"));
+        Path second = Files.createDirectories(tempDir.resolve("second"));
+        FileTime modified = FileTime.fromMillis(1_000_000);
+        Files.setLastModifiedTime(Files.writeString(first.resolve("a.txt"), "first"), modified);
+        Files.setLastModifiedTime(Files.writeString(second.resolve("a.txt"), "other"), modified);
+        Path outputFile = tempDir.resolve("output.txt");
+        merger.merge(List.of("a.txt"), first.toString(), outputFile.toString());
+
+        // when
+        long written = merger.mergeCountingWrites(List.of("a.txt"), second.toString(), outputFile.toString());
+
+        // then
+        assertEquals("other", Files.readString(outputFile));
+        assertEquals(5, written);
+    }
+
+    @Test
+    void shouldReportWrittenBytesInMergeResult() throws Exception {
+        // given
+        Path root = Files.createDirectories(tempDir.resolve("root"));
+        Files.writeString(root.resolve("a.txt"), "first file");
+        Files.writeString(root.resolve("b.txt"), "*require 'a.txt'*");
+        Path outputFile = tempDir.resolve("output.txt");
+        FileMerger fileMerger = FileMergerFactory.createIncrementalMerger();
+        MergeResult first = fileMerger.merge(root.toString(), outputFile.toString());
+
+        // when
+        MergeResult second = fileMerger.merge(root.toString(), outputFile.toString());
+
+        // then
+        assertEquals(first.getOutputSize(), first.getWrittenBytes());
+        assertEquals(first.getOutputSize(), second.getOutputSize());
+        assertEquals(0, second.getWrittenBytes());
+    }
+}
@@ -0,0 +1,69 @@
+package filemerger.content;
+
+import filemerger.buffer.DirectBufferPool;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelContentMergerTest extends ContentMergerTest {
+    private final ContentMerger merger = new ParallelContentMerger(4, 5);
+
+    @Override
+    ContentMerger getMerger() {
+        return merger;
+    }
+
+    @Test
+    void shouldProduceSameBytesAsStreamingMerger() throws Exception {
+        // given
+        List<String> files = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            String name = "file" + i + ".txt";
+            createFile(name, "\t " + "строка ".repeat(i % 5) + "line " + i + " \r\n");
+            files.add(name);
+        }
+        createFile("blank.txt", "   ");
+        createFile("empty.txt", "");
+        files.add(0, "blank.txt");
+        files.add("empty.txt");
+        Path expectedFile = tempDir.resolve("expected.out");
+        Path actualFile = tempDir.resolve("actual.out");
+        Files.writeString(actualFile, "stale content that is longer than nothing".repeat(100));
+
+        new StreamingContentMerger().merge(files, tempDir.toString(), expectedFile.toString());
+
+        // when
+        new ParallelContentMerger(3, 7).merge(files, tempDir.toString(), actualFile.toString());
+
+        // then
+        assertArrayEquals(Files.readAllBytes(expectedFile), Files.readAllBytes(actualFile));
+    }
+
+    @Test
+    void shouldWriteSeparatorsWithFirstChunkForAnyBufferSize() throws Exception {
+        // given
+        List<String> files = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            String name = "file" + i + ".txt";
+            createFile(name, i % 4 == 0 ? " \n" : " content " + "x".repeat(i) + " ");
+            files.add(name);
+        }
+        Path expectedFile = tempDir.resolve("expected.out");
+        new StreamingContentMerger().merge(files, tempDir.toString(), expectedFile.toString());
+
+        for (int bufferSize : new int[]{1, 2, 3, 16}) {
+            // when
+            Path actualFile = tempDir.resolve("actual-" + bufferSize + ".out");
+            new ParallelContentMerger(3, 4, new DirectBufferPool(bufferSize, bufferSize * 4L))
+                .merge(files, tempDir.toString(), actualFile.toString());
+
+            // then
+            assertArrayEquals(Files.readAllBytes(expectedFile), Files.readAllBytes(actualFile), "buffer " + bufferSize);
+        }
+    }
+}
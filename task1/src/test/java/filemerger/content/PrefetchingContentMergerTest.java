@@ -0,0 +1,48 @@
+package filemerger.content;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrefetchingContentMergerTest extends ContentMergerTest {
+    private final ContentMerger merger = new PrefetchingContentMerger();
+
+    @Override
+    ContentMerger getMerger() {
+        return merger;
+    }
+
+    @Test
+    void shouldProduceSameBytesAsStreamingMergerWithSmallBudget() throws Exception {
+        // given
+        List<String> files = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            String name = "file" + i + ".txt";
+            createFile(name, "  " + "содержимое ".repeat(i % 7) + i + "\n\n");
+            files.add(name);
+        }
+        createFile("empty.txt", " \n ");
+        files.add(25, "empty.txt");
+        Path expectedFile = tempDir.resolve("expected.out");
+        Path actualFile = tempDir.resolve("actual.out");
+
+        new StreamingContentMerger().merge(files, tempDir.toString(), expectedFile.toString());
+
+        // when
+        new PrefetchingContentMerger(3, 40).merge(files, tempDir.toString(), actualFile.toString());
+
+        // then
+        assertArrayEquals(Files.readAllBytes(expectedFile), Files.readAllBytes(actualFile));
+    }
+
+    @Test
+    void shouldRejectNonPositiveSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new PrefetchingContentMerger(0, 1024));
+        assertThrows(IllegalArgumentException.class, () -> new PrefetchingContentMerger(2, 0));
+    }
+}
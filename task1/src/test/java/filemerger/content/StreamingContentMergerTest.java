@@ -1,5 +1,14 @@
 package filemerger.content;
 
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
 class StreamingContentMergerTest extends ContentMergerTest {
     private final ContentMerger merger = new StreamingContentMerger();
 
@@ -7,4 +16,32 @@ class StreamingContentMergerTest extends ContentMergerTest {
     ContentMerger getMerger() {
         return merger;
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldMatchStringTrimSemantics() throws Exception {
+        // given
+        List<String> contents = List.of(
+            "\u0001\t  юникод \u001f\r\n",
+            "   ",
+            "",
+            " " + "многострочный текст\n".repeat(10_000) + "  \n",
+            "plain"
+        );
+        List<String> files = new ArrayList<>();
+        for (int i = 0; i < contents.size(); i++) {
+            createFile("file" + i + ".txt", contents.get(i));
+            files.add("file" + i + ".txt");
+        }
+        List<String> trimmed = new ArrayList<>();
+        for (String content : contents) {
+            trimmed.add(content.trim());
+        }
+        Path outputFile = tempDir.resolve("output.out");
+
+        // when
+        getMerger().merge(files, tempDir.toString(), outputFile.toString());
+
+        // then
+        assertEquals(String.join("\n\n", trimmed), Files.readString(outputFile));
+    }
+}
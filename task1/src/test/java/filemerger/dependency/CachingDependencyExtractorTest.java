@@ -0,0 +1,177 @@
+package filemerger.dependency;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingDependencyExtractorTest extends DependencyExtractorTest {
+    private final AtomicInteger delegateCalls = new AtomicInteger();
+    private final DependencyExtractor countingExtractor = (filePath, rootPath) -> {
+        delegateCalls.incrementAndGet();
+        return new InMemoryDependencyExtractor().extractDependencies(filePath, rootPath);
+    };
+
+    @Override
+    DependencyExtractor getExtractor() {
+        return new CachingDependencyExtractor(countingExtractor, tempDir.resolve("cache"));
+    }
+
+    @Test
+    void shouldServeUnchangedFilesFromCacheAcrossInstances() throws Exception {
+        // given
+        Path file = createFile("file.txt", "require 'dep.txt'");
+        CachingDependencyExtractor first = new CachingDependencyExtractor(countingExtractor, tempDir.resolve("cache"));
+        first.extractDependencies(file.toString(), tempDir.toString());
+        first.flush();
+
+        // when
+        CachingDependencyExtractor second = new CachingDependencyExtractor(countingExtractor, tempDir.resolve("cache"));
+        List<String> dependencies = second.extractDependencies(file.toString(), tempDir.toString());
+
+        // then
+        assertEquals(List.of("dep.txt"), dependencies);
+        assertEquals(1, delegateCalls.get());
+        assertEquals(1, second.getHits());
+        assertEquals(0, second.getMisses());
+    }
+
+    @Test
+    void shouldReExtractChangedFile() throws Exception {
+        // given
+        Path file = createFile("file.txt", "require 'dep.txt'");
+        CachingDependencyExtractor extractor = new CachingDependencyExtractor(countingExtractor, tempDir.resolve("cache"));
+        extractor.extractDependencies(file.toString(), tempDir.toString());
+
+        // when
+        Files.writeString(file, "require 'other.txt'\nrequire 'dep.txt'");
+        List<String> dependencies = extractor.extractDependencies(file.toString(), tempDir.toString());
+
+        // then
+        assertEquals(List.of("other.txt", "dep.txt"), dependencies);
+        assertEquals(2, extractor.getMisses());
+    }
+
+    @Test
+    void shouldHitByContentHashWhenOnlyModificationTimeChanged() throws Exception {
+        // given
+        Path file = createFile("file.txt", "require 'dep.txt'");
+        CachingDependencyExtractor extractor =
+            new CachingDependencyExtractor(countingExtractor, tempDir.resolve("cache"), true);
+        extractor.extractDependencies(file.toString(), tempDir.toString());
+
+        // when
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 60_000));
+        List<String> dependencies = extractor.extractDependencies(file.toString(), tempDir.toString());
+
+        // then
+        assertEquals(List.of("dep.txt"), dependencies);
+        assertEquals(1, delegateCalls.get());
+        assertEquals(1, extractor.getHits());
+    }
+
+    @Test
+    void shouldKeepEntriesOfConcurrentRuns() throws Exception {
+        // given
+        Path fileA = createFile("a.txt", "require 'x.txt'");
+        Path fileB = createFile("b.txt", "require 'y.txt'");
+        CachingDependencyExtractor first = new CachingDependencyExtractor(countingExtractor, tempDir.resolve("cache"));
+        CachingDependencyExtractor second = new CachingDependencyExtractor(countingExtractor, tempDir.resolve("cache"));
+        first.extractDependencies(fileA.toString(), tempDir.toString());
+        second.extractDependencies(fileB.toString(), tempDir.toString());
+
+        // when
+        first.flush();
+        second.flush();
+
+        // then
+        CachingDependencyExtractor third = new CachingDependencyExtractor(countingExtractor, tempDir.resolve("cache"));
+        third.extractDependencies(fileA.toString(), tempDir.toString());
+        third.extractDependencies(fileB.toString(), tempDir.toString());
+        assertEquals(2, third.getHits());
+        assertEquals(0, third.getMisses());
+    }
+
+    @Test
+    void shouldDetectSameSizeEditWithinSameModificationTime() throws Exception {
+        // given
+        Path file = createFile("file.txt", "require 'a.txt'");
+        CachingDependencyExtractor extractor = new CachingDependencyExtractor(countingExtractor, tempDir.resolve("cache"));
+        extractor.extractDependencies(file.toString(), tempDir.toString());
+
+        // when
+        FileTime modified = Files.getLastModifiedTime(file);
+        Files.writeString(file, "require 'b.txt'");
+        Files.setLastModifiedTime(file, modified);
+        List<String> dependencies = extractor.extractDependencies(file.toString(), tempDir.toString());
+
+        // then
+        assertEquals(List.of("b.txt"), dependencies);
+        assertEquals(2, extractor.getMisses());
+    }
+
+    @Test
+    void shouldPersistDependenciesLongerThan64Kb() throws Exception {
+        // given
+        String longDependency = "d".repeat(70_000) + ".txt";
+        Path file = createFile("file.txt", "require '" + longDependency + "'");
+        CachingDependencyExtractor first = new CachingDependencyExtractor(countingExtractor, tempDir.resolve("cache"));
+        first.extractDependencies(file.toString(), tempDir.toString());
+
+        // when
+        first.flush();
+        CachingDependencyExtractor second = new CachingDependencyExtractor(countingExtractor, tempDir.resolve("cache"));
+        List<String> dependencies = second.extractDependencies(file.toString(), tempDir.toString());
+
+        // then
+        assertEquals(List.of(longDependency), dependencies);
+        assertEquals(1, second.getHits());
+    }
+
+    @Test
+    void shouldPruneEntriesOfDeletedFiles() throws Exception {
+        // given
+        Path kept = createFile("kept.txt", "require 'x.txt'");
+        Path deleted = createFile("deleted.txt", "require 'y.txt'");
+        FileTime modified = Files.getLastModifiedTime(deleted);
+        CachingDependencyExtractor first = new CachingDependencyExtractor(countingExtractor, tempDir.resolve("cache"));
+        first.extractDependencies(kept.toString(), tempDir.toString());
+        first.extractDependencies(deleted.toString(), tempDir.toString());
+        first.flush();
+
+        // when
+        Files.delete(deleted);
+        CachingDependencyExtractor second = new CachingDependencyExtractor(countingExtractor, tempDir.resolve("cache"));
+        second.extractDependencies(kept.toString(), tempDir.toString());
+        second.flush();
+
+        // then
+        createFile("deleted.txt", "require 'y.txt'");
+        Files.setLastModifiedTime(deleted, modified);
+        CachingDependencyExtractor third = new CachingDependencyExtractor(countingExtractor, tempDir.resolve("cache"));
+        third.extractDependencies(deleted.toString(), tempDir.toString());
+        assertEquals(1, third.getMisses());
+    }
+
+    @Test
+    void shouldResetCountersOnFlush() throws Exception {
+        // given
+        Path file = createFile("file.txt", "require 'dep.txt'");
+        CachingDependencyExtractor extractor = new CachingDependencyExtractor(countingExtractor, tempDir.resolve("cache"));
+        extractor.extractDependencies(file.toString(), tempDir.toString());
+        extractor.extractDependencies(file.toString(), tempDir.toString());
+        extractor.flush();
+
+        // when
+        extractor.extractDependencies(file.toString(), tempDir.toString());
+
+        // then
+        assertEquals(1, extractor.getHits());
+        assertEquals(0, extractor.getMisses());
+    }
+}
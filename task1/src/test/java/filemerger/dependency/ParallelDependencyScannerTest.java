@@ -0,0 +1,77 @@
+package filemerger.dependency;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelDependencyScannerTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldProduceSameDependenciesAsSequentialScan() throws Exception {
+        // given
+        List<String> files = createFiles(500);
+        DependencyExtractor extractor = new InMemoryDependencyExtractor();
+
+        List<List<String>> expected = new ArrayList<>();
+        for (String file : files) {
+            expected.add(extractor.extractDependencies(tempDir.resolve(file).toString(), tempDir.toString()));
+        }
+
+        // when
+        List<List<String>> actual = new ParallelDependencyScanner(extractor, 4)
+            .scan(files, tempDir.toString());
+
+        // then
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void shouldReportFilesHandledByEachWorker() throws Exception {
+        // given
+        List<String> files = createFiles(300);
+        ParallelDependencyScanner scanner = new ParallelDependencyScanner(new InMemoryDependencyExtractor(), 3);
+
+        // when
+        scanner.scan(files, tempDir.toString());
+
+        // then
+        Map<String, Integer> counts = scanner.getLastWorkerFileCounts();
+        assertFalse(counts.isEmpty());
+        assertTrue(counts.size() <= 3);
+        assertEquals(300, counts.values().stream().mapToInt(Integer::intValue).sum());
+    }
+
+    @Test
+    void shouldPropagateExtractionFailure() {
+        // given
+        ParallelDependencyScanner scanner = new ParallelDependencyScanner(new InMemoryDependencyExtractor(), 2);
+
+        // when & then
+        assertThrows(RuntimeException.class, () ->
+            scanner.scan(List.of("nonexistent.txt"), tempDir.toString())
+        );
+    }
+
+    private List<String> createFiles(int count) throws Exception {
+        List<String> files = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String name = String.format("file%04d.txt", i);
+            String content = i == 0
+                ? "root"
+                : "require 'file" + String.format("%04d", i / 2) + ".txt'\n"
+                    + "require 'file" + String.format("%04d", i - 1) + ".txt'\ncontent " + i;
+            Files.writeString(tempDir.resolve(name), content);
+            files.add(name);
+        }
+        return files;
+    }
+}
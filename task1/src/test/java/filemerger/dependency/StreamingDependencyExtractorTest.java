@@ -1,5 +1,15 @@
 package filemerger.dependency;
 
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+
+import static org.junit.jupiter.api.Assertions.*;
+
 class StreamingDependencyExtractorTest extends DependencyExtractorTest {
     private final DependencyExtractor extractor = new StreamingDependencyExtractor();
 
@@ -7,4 +17,63 @@ class StreamingDependencyExtractorTest extends DependencyExtractorTest {
     DependencyExtractor getExtractor() {
         return extractor;
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldExtractDirectivesCrossingBufferBoundary() throws Exception {
+        // given
+        String content = "text require 'dep1.txt' more requirequire 'dir/dep2.txt'\nrequire ''";
+        Path file = createFile("file.txt", content);
+
+        for (int bufferSize = 1; bufferSize <= content.length(); bufferSize++) {
+            // when
+            List<String> dependencies = new StreamingDependencyExtractor(bufferSize)
+                .extractDependencies(file.toString(), tempDir.toString());
+
+            // then
+            assertEquals(List.of("dep1.txt", "dir/dep2.txt", ""), dependencies, "buffer size " + bufferSize);
+        }
+    }
+
+    @Test
+    void shouldDropPathsLongerThanLimit() throws Exception {
+        // given
+        String longPath = "x".repeat(RequireDirectiveScanner.MAX_PATH_LENGTH + 1);
+        String maxPath = "y".repeat(RequireDirectiveScanner.MAX_PATH_LENGTH);
+        Path file = createFile("file.txt",
+            "require 'a.txt' require '" + longPath + "' require '" + maxPath + "' require 'b.txt' require '" + longPath);
+
+        // when
+        List<String> dependencies = extractor.extractDependencies(file.toString(), tempDir.toString());
+
+        // then
+        assertEquals(List.of("a.txt", maxPath, "b.txt"), dependencies);
+    }
+
+    @Test
+    void shouldMatchRegexOnRandomContent() throws Exception {
+        // given
+        String[] tokens = {"require '", "require", "'", "a.txt", "re", "quire '", "\n", " ", "ж"};
+        Random random = new Random(42);
+
+        for (int round = 0; round < 200; round++) {
+            StringBuilder content = new StringBuilder();
+            for (int i = 0; i < 30; i++) {
+                content.append(tokens[random.nextInt(tokens.length)]);
+            }
+            Path file = createFile("random.txt", content.toString());
+
+            List<String> expected = new ArrayList<>();
+            Matcher matcher = AbstractDependencyExtractor.REQUIRE_PATTERN.matcher(content);
+            while (matcher.find()) {
+                expected.add(matcher.group(1));
+            }
+
+            // when
+            List<String> dependencies = new StreamingDependencyExtractor(1 + random.nextInt(16))
+                .extractDependencies(file.toString(), tempDir.toString());
+
+            // then
+            assertEquals(expected, dependencies, content.toString());
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package filemerger.dependency;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VectorizedDependencyExtractorTest extends DependencyExtractorTest {
+    private final DependencyExtractor extractor = new VectorizedDependencyExtractor();
+
+    @Override
+    DependencyExtractor getExtractor() {
+        return extractor;
+    }
+
+    @Test
+    void shouldExtractDirectivesCrossingBufferBoundary() throws Exception {
+        // given
+        String content = "text require 'dep1.txt' more requirequire 'dir/dep2.txt'\nrequire ''";
+        Path file = createFile("file.txt", content);
+
+        for (int bufferSize = 1; bufferSize <= content.length(); bufferSize++) {
+            for (RequireMarkerFinder finder : finders()) {
+                // when
+                List<String> dependencies = new VectorizedDependencyExtractor(finder, bufferSize)
+                    .extractDependencies(file.toString(), tempDir.toString());
+
+                // then
+                assertEquals(List.of("dep1.txt", "dir/dep2.txt", ""), dependencies, "buffer size " + bufferSize);
+            }
+        }
+    }
+
+    @Test
+    void shouldMatchRegexOnFuzzedContent() throws Exception {
+        // given
+        String[] tokens = {
+            "require '", "require", "'", "a.txt", "re", "quire '", "r", "\n", " ", "ж", "日本", "😀",
+            "lorem ipsum dolor sit amet ", "require  '", "Require '", "require '\n'"
+        };
+        Random random = new Random(42);
+
+        for (int round = 0; round < 300; round++) {
+            StringBuilder content = new StringBuilder();
+            int tokenCount = random.nextInt(round % 10 == 0 ? 2000 : 60);
+            for (int i = 0; i < tokenCount; i++) {
+                content.append(tokens[random.nextInt(tokens.length)]);
+            }
+            Path file = createFile("random.txt", content.toString());
+
+            List<String> expected = new ArrayList<>();
+            Matcher matcher = AbstractDependencyExtractor.REQUIRE_PATTERN.matcher(content);
+            while (matcher.find()) {
+                expected.add(matcher.group(1));
+            }
+
+            for (RequireMarkerFinder finder : finders()) {
+                // when
+                List<String> dependencies = new VectorizedDependencyExtractor(finder, 1 + random.nextInt(64))
+                    .extractDependencies(file.toString(), tempDir.toString());
+
+                // then
+                assertEquals(expected, dependencies, content.toString());
+            }
+        }
+    }
+
+    @Test
+    void shouldFindSameMarkersWithScalarAndVectorSearch() {
+        // given
+        byte[] alphabet = "requi '\nx".getBytes(StandardCharsets.US_ASCII);
+        Random random = new Random(7);
+        byte[] data = new byte[4096];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = alphabet[random.nextInt(alphabet.length)];
+        }
+        for (int i = 0; i < 40; i++) {
+            int position = random.nextInt(data.length - RequireMarkerFinder.MARKER.length);
+            System.arraycopy(RequireMarkerFinder.MARKER, 0, data, position, RequireMarkerFinder.MARKER.length);
+        }
+
+        for (RequireMarkerFinder finder : finders()) {
+            for (int from = 0; from < 200; from++) {
+                for (int to = data.length - 70; to <= data.length; to += 7) {
+                    // when
+                    int actual = finder.indexOf(data, from, to);
+
+                    // then
+                    assertEquals(naiveIndexOf(data, from, to), actual, finder + " from " + from + " to " + to);
+                }
+            }
+        }
+    }
+
+    @Test
+    void shouldGrowBufferForPathLongerThanBuffer() throws Exception {
+        // given
+        String longPath = "dir/".repeat(1000) + "file.txt";
+        Path file = createFile("long.txt", "x require '" + longPath + "' y require 'b.txt'");
+
+        // when
+        List<String> dependencies = new VectorizedDependencyExtractor(16)
+            .extractDependencies(file.toString(), tempDir.toString());
+
+        // then
+        assertEquals(List.of(longPath, "b.txt"), dependencies);
+    }
+
+    @Test
+    void shouldDropPathsLongerThanLimit() throws Exception {
+        // given
+        String limitPath = "д".repeat(RequireDirectiveScanner.MAX_PATH_LENGTH);
+        String tooLongPath = limitPath + "x";
+        Path file = createFile("limit.txt", "require '" + tooLongPath + "' require '" + limitPath
+            + "' require 'b.txt' require '" + "y".repeat(100_000));
+
+        for (RequireMarkerFinder finder : finders()) {
+            // when
+            List<String> dependencies = new VectorizedDependencyExtractor(finder, 16)
+                .extractDependencies(file.toString(), tempDir.toString());
+
+            // then
+            assertEquals(List.of(limitPath, "b.txt"), dependencies, finder.toString());
+        }
+    }
+
+    private static List<RequireMarkerFinder> finders() {
+        List<RequireMarkerFinder> finders = new ArrayList<>();
+        finders.add(new ScalarRequireMarkerFinder());
+        if (new VectorizedDependencyExtractor().isVectorized()) {
+            // класс из source set vector доступен только при запуске с jdk.incubator.vector
+            finders.add(VectorizedDependencyExtractor.DEFAULT_FINDER);
+        }
+        return finders;
+    }
+
+    private static int naiveIndexOf(byte[] data, int from, int to) {
+        for (int i = from; i + RequireMarkerFinder.MARKER.length <= to; i++) {
+            if (RequireMarkerFinder.matchesAt(data, i)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
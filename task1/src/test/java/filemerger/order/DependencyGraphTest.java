@@ -0,0 +1,54 @@
+package filemerger.order;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DependencyGraphTest {
+    @Test
+    void shouldAssignIdsInLexicographicOrder() {
+        // when
+        DependencyGraph graph = DependencyGraph.builder()
+            .addDependency("c.txt", "b.txt")
+            .addDependency("a.txt", "c.txt")
+            .build();
+
+        // then
+        assertEquals(3, graph.nodeCount());
+        assertEquals("a.txt", graph.name(0));
+        assertEquals("b.txt", graph.name(1));
+        assertEquals("c.txt", graph.name(2));
+        assertEquals(2, graph.indexOf("c.txt"));
+        assertEquals(-1, graph.indexOf("d.txt"));
+    }
+
+    @Test
+    void shouldDropDuplicateEdges() {
+        // when
+        DependencyGraph graph = DependencyGraph.builder()
+            .addDependency("a.txt", "b.txt")
+            .addDependency("a.txt", "b.txt")
+            .addDependency("a.txt", "c.txt")
+            .build();
+
+        // then
+        assertEquals(2, graph.edgeCount());
+        assertEquals(2, graph.inDegree(0));
+        assertEquals(0, graph.inDegree(1));
+    }
+
+    @Test
+    void shouldConvertBackToPairs() {
+        // given
+        String[][] pairs = {
+            {"a.txt", "b.txt"},
+            {"c.txt", "b.txt"}
+        };
+
+        // when
+        String[][] result = DependencyGraph.of(pairs).toPairs();
+
+        // then
+        assertArrayEquals(pairs, result);
+    }
+}
@@ -0,0 +1,103 @@
+package filemerger.order;
+
+import filemerger.exceptions.CyclicDependencyException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExternalOrderResolverTest extends OrderResolverTest {
+    @TempDir
+    Path tempDir;
+
+    @Override
+    OrderResolver getResolver() {
+        return new ExternalOrderResolver(512, tempDir);
+    }
+
+    @Test
+    void shouldMatchInMemoryOrderWhenSpillingManyRuns() {
+        // given
+        Random random = new Random(42);
+        int nodes = 2_000;
+        List<String[]> deps = new ArrayList<>();
+        for (int node = 1; node < nodes; node++) {
+            int count = random.nextInt(4);
+            for (int i = 0; i < count; i++) {
+                deps.add(new String[]{"file" + node + ".txt", "file" + random.nextInt(node) + ".txt"});
+            }
+        }
+        deps.add(deps.get(0).clone());
+        String[][] pairs = deps.toArray(new String[0][]);
+
+        // when
+        List<String> actual = new ExternalOrderResolver(4 * 1024, tempDir).resolve(pairs);
+
+        // then
+        assertEquals(new TopologicalOrderResolver().resolve(pairs), actual);
+    }
+
+    @Test
+    void shouldSpillPathsLongerThan64Kb() {
+        // given
+        String longPath = "d".repeat(70_000) + ".txt";
+        String[][] pairs = {
+            {"a.txt", longPath},
+            {longPath, "b.txt"},
+            {"c.txt", "b.txt"}
+        };
+
+        // when
+        List<String> actual = new ExternalOrderResolver(256, tempDir).resolve(pairs);
+
+        // then
+        assertEquals(new TopologicalOrderResolver().resolve(pairs), actual);
+    }
+
+    @Test
+    void shouldReportSameCyclesAsInMemoryResolver() {
+        // given
+        String[][] deps = {
+            {"a.txt", "b.txt"},
+            {"b.txt", "c.txt"},
+            {"c.txt", "a.txt"},
+            {"d.txt", "a.txt"},
+            {"c.txt", "e.txt"},
+            {"s.txt", "s.txt"}
+        };
+        CyclicDependencyException expected = assertThrows(
+            CyclicDependencyException.class, () -> new TopologicalOrderResolver().resolve(deps));
+
+        // when
+        CyclicDependencyException actual = assertThrows(
+            CyclicDependencyException.class, () -> getResolver().resolve(deps));
+
+        // then
+        assertEquals(expected.getMessage(), actual.getMessage());
+        assertEquals(expected.getCycles(), actual.getCycles());
+    }
+
+    @Test
+    void shouldDeleteTemporaryFilesAfterResolve() throws Exception {
+        // given
+        String[][] deps = new String[200][];
+        for (int i = 0; i < deps.length; i++) {
+            deps[i] = new String[]{"file" + (i + 1) + ".txt", "file" + i + ".txt"};
+        }
+
+        // when
+        getResolver().resolve(deps);
+
+        // then
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+}
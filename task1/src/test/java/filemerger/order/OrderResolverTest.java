@@ -94,4 +94,31 @@ abstract class OrderResolverTest {
         // then
         assertEquals(List.of("a2.txt", "b2.txt", "a1.txt", "b1.txt", "c1.txt", "d1.txt"), result);
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldResolveLevelsConsistentWithFlatOrder() {
+        // given
+        String[][] deps = {
+            {"a.txt", "b.txt"},
+            {"a.txt", "c.txt"},
+            {"b.txt", "d.txt"},
+            {"c.txt", "d.txt"},
+            {"e.txt", "d.txt"},
+            {"b.txt", "f.txt"}
+        };
+
+        // when
+        List<List<String>> levels = getResolver().resolveLevels(deps);
+
+        // then
+        assertEquals(List.of(
+            List.of("d.txt", "f.txt"),
+            List.of("b.txt", "c.txt", "e.txt"),
+            List.of("a.txt")
+        ), levels);
+        assertEquals(
+            getResolver().resolve(deps),
+            levels.stream().flatMap(List::stream).toList()
+        );
+    }
+}
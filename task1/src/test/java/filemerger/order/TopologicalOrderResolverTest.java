@@ -1,8 +1,161 @@
 package filemerger.order;
 
+import filemerger.exceptions.CyclicDependencyException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
 class TopologicalOrderResolverTest extends OrderResolverTest {
     @Override
     OrderResolver getResolver() {
         return new TopologicalOrderResolver();
     }
-}
\ No newline at end of file
+
+    @Test
+    @Timeout(30)
+    void shouldResolveMillionNodeChainQuickly() {
+        // given
+        int size = 1_000_000;
+        String[][] deps = new String[size - 1][];
+        for (int i = 1; i < size; i++) {
+            deps[i - 1] = new String[]{nodeName(i - 1), nodeName(i)};
+        }
+
+        // when
+        List<String> result = getResolver().resolve(deps);
+
+        // then
+        assertEquals(size, result.size());
+        assertEquals(nodeName(size - 1), result.get(0));
+        assertEquals(nodeName(0), result.get(size - 1));
+    }
+
+    @Test
+    void shouldIgnoreDuplicateDependencies() {
+        // given
+        String[][] deps = {
+            {"a.txt", "b.txt"},
+            {"a.txt", "b.txt"}
+        };
+
+        // when
+        List<String> result = getResolver().resolve(deps);
+
+        // then
+        assertEquals(List.of("b.txt", "a.txt"), result);
+    }
+
+    @Test
+    void shouldReportCycleWithDependentFilesOutsideIt() {
+        // given
+        String[][] deps = {
+            {"a.txt", "b.txt"},
+            {"b.txt", "a.txt"},
+            {"z.txt", "a.txt"},
+            {"0.txt", "b.txt"}
+        };
+
+        // when
+        CyclicDependencyException exception = assertThrows(
+            CyclicDependencyException.class,
+            () -> getResolver().resolve(deps)
+        );
+
+        // then
+        String message = exception.getMessage();
+        assertTrue(message.contains("a.txt -> b.txt") || message.contains("b.txt -> a.txt"));
+        assertFalse(message.contains("0.txt"));
+        assertFalse(message.contains("z.txt"));
+    }
+
+    @Test
+    void shouldReportEveryCyclicComponent() {
+        // given
+        String[][] deps = {
+            {"a.txt", "b.txt"},
+            {"b.txt", "c.txt"},
+            {"c.txt", "a.txt"},
+            {"x.txt", "y.txt"},
+            {"y.txt", "x.txt"},
+            {"s.txt", "s.txt"},
+            {"d.txt", "a.txt"},
+            {"y.txt", "ok.txt"}
+        };
+
+        // when
+        CyclicDependencyException exception = assertThrows(
+            CyclicDependencyException.class,
+            () -> getResolver().resolve(deps)
+        );
+
+        // then
+        assertEquals(List.of(
+            List.of("a.txt", "b.txt", "c.txt", "a.txt"),
+            List.of("s.txt", "s.txt"),
+            List.of("x.txt", "y.txt", "x.txt")
+        ), exception.getCycles());
+        assertTrue(exception.getMessage().contains("3 cyclic dependencies"));
+        assertFalse(exception.getMessage().contains("d.txt"));
+    }
+
+    @Test
+    @Timeout(30)
+    void shouldReportCyclesInLargeGraph() {
+        // given
+        int count = 200_000;
+        String[][] deps = new String[count + 1][];
+        for (int i = 0; i < count; i++) {
+            deps[i] = new String[]{nodeName(i), nodeName((i + 1) % count)};
+        }
+        deps[count] = new String[]{nodeName(count), nodeName(count)};
+
+        // when
+        CyclicDependencyException exception = assertThrows(
+            CyclicDependencyException.class,
+            () -> getResolver().resolve(deps)
+        );
+
+        // then
+        assertEquals(2, exception.getCycles().size());
+        assertEquals(count + 1, exception.getCycles().get(0).size());
+        assertEquals(List.of(nodeName(count), nodeName(count)), exception.getCycles().get(1));
+    }
+
+    @Test
+    void shouldMatchDefaultLevelsImplementation() {
+        // given
+        TopologicalOrderResolver resolver = new TopologicalOrderResolver();
+        OrderResolver flatOnly = resolver::resolve;
+        String[][] deps = new String[300][];
+        for (int i = 0; i < deps.length; i++) {
+            deps[i] = new String[]{nodeName(i * 7 % 101 + 1), nodeName(i * 13 % (i * 7 % 101 + 1))};
+        }
+
+        // when
+        List<List<String>> expected = flatOnly.resolveLevels(deps);
+        List<List<String>> actual = resolver.resolveLevels(deps);
+
+        // then
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void shouldNameFileMissingFromGraphWhenComputingDefaultLevels() {
+        // given
+        OrderResolver broken = dependencies -> List.of("a.txt", "unknown.txt");
+        DependencyGraph graph = DependencyGraph.of(new String[][]{{"b.txt", "a.txt"}});
+
+        // when
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> broken.resolveLevels(graph));
+
+        // then
+        assertTrue(exception.getMessage().contains("unknown.txt"));
+    }
+
+    private static String nodeName(int i) {
+        return String.format("node%07d.txt", i);
+    }
+}
@@ -0,0 +1,65 @@
+package filemerger.dependency;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Поиск маркера на Vector API: за одну итерацию сравниваются SPECIES.length()
+ * позиций по первому и последнему байту маркера, полностью проверяются только
+ * позиции, где совпали оба байта. Требует модуль jdk.incubator.vector,
+ * поэтому лежит в отдельном source set vector, который компилируется с этим модулем.
+ */
+final class VectorRequireMarkerFinder implements RequireMarkerFinder {
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+    /** Маска помещается в long только при ширине до 64 дорожек (до AVX-512 включительно) */
+    private static final boolean MASK_FITS_LONG = SPECIES.length() <= Long.SIZE;
+    private static final int LAST_OFFSET = MARKER.length - 1;
+    private static final byte FIRST = MARKER[0];
+    private static final byte LAST = MARKER[LAST_OFFSET];
+
+    @Override
+    public int indexOf(byte[] data, int from, int to) {
+        int last = to - MARKER.length;
+        int lanes = SPECIES.length();
+        int i = from;
+        while (i + lanes - 1 <= last) {
+            ByteVector firstBytes = ByteVector.fromArray(SPECIES, data, i);
+            ByteVector lastBytes = ByteVector.fromArray(SPECIES, data, i + LAST_OFFSET);
+            VectorMask<Byte> mask = firstBytes.eq(FIRST).and(lastBytes.eq(LAST));
+            if (mask.anyTrue()) {
+                int candidate = MASK_FITS_LONG ? firstMatch(data, i, mask.toLong()) : firstMatch(data, i, mask);
+                if (candidate >= 0) {
+                    return candidate;
+                }
+            }
+            i += lanes;
+        }
+        for (; i <= last; i++) {
+            if (data[i] == FIRST && RequireMarkerFinder.matchesAt(data, i)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int firstMatch(byte[] data, int offset, long candidates) {
+        while (candidates != 0) {
+            int candidate = offset + Long.numberOfTrailingZeros(candidates);
+            if (RequireMarkerFinder.matchesAt(data, candidate)) {
+                return candidate;
+            }
+            candidates &= candidates - 1;
+        }
+        return -1;
+    }
+
+    private static int firstMatch(byte[] data, int offset, VectorMask<Byte> mask) {
+        for (int lane = mask.firstTrue(); lane < mask.length(); lane++) {
+            if (mask.laneIsSet(lane) && RequireMarkerFinder.matchesAt(data, offset + lane)) {
+                return offset + lane;
+            }
+        }
+        return -1;
+    }
+}